@@ -0,0 +1,65 @@
+package models;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+import java.util.function.BinaryOperator;
+
+/**
+ * Measures the searches and the merge of OrderedArrayList per operation, for lists of 1K up to 10M items,
+ * with a given fraction of the searches finding a match and a given fraction of the items in the sorted section.
+ * Missed searches fall back on a linear search of the whole list, which dominates with low hit ratios.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class OrderedArrayListSearchBenchmark {
+
+    // replaces the match by the new item, which is equal, such that hits leave the list unchanged
+    private static final BinaryOperator<Long> REPLACE = (newItem, matchedItem) -> newItem;
+
+    @Param({"1000", "10000", "100000", "1000000", "10000000"})
+    int size;
+
+    @Param({"1.0", "0.9", "0.5"})
+    double hitRatio;
+
+    @Param({"1.0", "0.99", "0.9"})
+    double sortedFraction;
+
+    OrderedArrayList<Long> list;
+    Long[] queries;
+    int next;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        this.list = OrderedListFixture.createList(this.size, this.sortedFraction, 1L);
+        this.queries = OrderedListFixture.createQueries(this.list, this.hitRatio, 2L);
+        this.next = 0;
+    }
+
+    private Long nextQuery() {
+        return this.queries[this.next++ & (OrderedListFixture.NUM_QUERIES - 1)];
+    }
+
+    @Benchmark
+    public int iterativeBinarySearch() {
+        return this.list.indexOfByIterativeBinarySearch(this.nextQuery());
+    }
+
+    @Benchmark
+    public int recursiveBinarySearch() {
+        return this.list.indexOfByRecursiveBinarySearch(this.nextQuery(), 0, this.list.getnSorted() - 1);
+    }
+
+    @Benchmark
+    public boolean merge() {
+        boolean added = this.list.merge(this.nextQuery(), REPLACE);
+        // a missed item has been appended, remove it again to keep the list at its size
+        if (added) this.list.remove(this.list.size() - 1);
+        return added;
+    }
+}
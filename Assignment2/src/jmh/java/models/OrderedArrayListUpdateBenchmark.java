@@ -0,0 +1,146 @@
+package models;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the updates of OrderedArrayList that disturb its sorted section: sort() after k appends,
+ * add(index) and remove(Object), for lists of 1K up to 10M items.
+ * Single updates take far less than the timer resolution of per-invocation fixtures,
+ * so every invocation of addAtIndex and removeObject performs a batch of BATCH_SIZE updates, which are reported per update.
+ * Every invocation starts from the fully sorted list, which is restored outside of the measurement
+ * by undoing the updates and sorting the list again, which takes linear time on the restored content.
+ * Every benchmark has a single state object that owns its list, as JMH does not share the benchmark instance
+ * with the fixtures of other state objects.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class OrderedArrayListUpdateBenchmark {
+
+    static final int BATCH_SIZE = 100;
+
+    /**
+     * a sorted list of the even numbers, odd numbers are not in the list
+     */
+    @State(Scope.Thread)
+    public static class SortedList {
+        @Param({"1000", "10000", "100000", "1000000", "10000000"})
+        int size;
+
+        OrderedArrayList<Long> list;
+        Random random;
+        int[] indices = new int[BATCH_SIZE];
+        Long[] items = new Long[BATCH_SIZE];
+
+        @Setup(Level.Trial)
+        public void createList() {
+            this.list = OrderedListFixture.createList(this.size, 1.0, 1L);
+            this.random = new Random(3L);
+        }
+
+        // picks distinct positions for the next batch, with either the items at these positions
+        //  or new odd items, which are not in the list yet
+        void pickBatch(boolean presentItems) {
+            Set<Integer> picked = new HashSet<>();
+            for (int b = 0; b < BATCH_SIZE; b++) {
+                do {
+                    this.indices[b] = this.random.nextInt(this.size);
+                } while (!picked.add(this.indices[b]));
+                this.items[b] = presentItems ? this.list.get(this.indices[b]) : 2L * this.indices[b] + 1;
+            }
+        }
+
+        // removes all odd items and restores the order of the list
+        void removeOddItems() {
+            this.list.removeIf(item -> (item & 1) == 1);
+            this.list.sort();
+        }
+    }
+
+    /**
+     * the items that are appended to the sorted list before it is sorted again
+     * a single sort takes at least linear time, which is long enough to be measured by itself
+     */
+    public static class Appends extends SortedList {
+        @Param({"1", "100", "10000"})
+        int numAppends;
+
+        Long[] appends;
+
+        @Setup(Level.Trial)
+        public void createAppends() {
+            Random random = new Random(4L);
+            this.appends = new Long[this.numAppends];
+            for (int i = 0; i < this.numAppends; i++) {
+                this.appends[i] = 2L * random.nextInt(this.size) + 1;
+            }
+        }
+
+        @Setup(Level.Invocation)
+        public void append() {
+            this.list.addAll(Arrays.asList(this.appends));
+        }
+
+        @TearDown(Level.Invocation)
+        public void restore() {
+            this.removeOddItems();
+        }
+    }
+
+    public static class Additions extends SortedList {
+        @Setup(Level.Invocation)
+        public void pick() {
+            this.pickBatch(false);
+        }
+
+        @TearDown(Level.Invocation)
+        public void restore() {
+            this.removeOddItems();
+        }
+    }
+
+    public static class Removals extends SortedList {
+        @Setup(Level.Invocation)
+        public void pick() {
+            this.pickBatch(true);
+        }
+
+        @TearDown(Level.Invocation)
+        public void restore() {
+            // put back the removed items
+            this.list.addAll(Arrays.asList(this.items));
+            this.list.sort();
+        }
+    }
+
+    @Benchmark
+    public void sortAfterAppends(Appends appends) {
+        appends.list.sort();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(BATCH_SIZE)
+    public void addAtIndex(Additions additions) {
+        for (int b = 0; b < BATCH_SIZE; b++) {
+            additions.list.add(additions.indices[b], additions.items[b]);
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(BATCH_SIZE)
+    public int removeObject(Removals removals) {
+        int numRemoved = 0;
+        for (int b = 0; b < BATCH_SIZE; b++) {
+            if (removals.list.remove(removals.items[b])) numRemoved++;
+        }
+        return numRemoved;
+    }
+}
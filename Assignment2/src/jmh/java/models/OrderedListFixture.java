@@ -0,0 +1,50 @@
+package models;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Builds the lists and search keys of the ordered list benchmarks.
+ * The list holds the even numbers 0, 2, ..., 2 * (size - 1), such that every odd number is a miss.
+ * A sortedFraction of the items is in the sorted section, the other items are appended in random order.
+ */
+class OrderedListFixture {
+
+    static final int NUM_QUERIES = 1024;        // a power of 2, queries are cycled by masking
+    static final Comparator<Long> ORDENING = Comparator.naturalOrder();
+
+    static OrderedArrayList<Long> createList(int size, double sortedFraction, long seed) {
+        List<Long> items = new ArrayList<>(size);
+        for (long i = 0; i < size; i++) {
+            items.add(2 * i);
+        }
+        Collections.shuffle(items, new Random(seed));
+
+        int nSorted = (int) (size * sortedFraction);
+        OrderedArrayList<Long> list = new OrderedArrayList<>(ORDENING);
+        list.addAll(items.subList(0, nSorted));
+        list.sort();
+        list.addAll(items.subList(nSorted, size));
+        return list;
+    }
+
+    /**
+     * picks search keys of which a fraction hitRatio is found in the list
+     * the hits are the very instances in the list, because the linear search of the unsorted section matches on identity
+     */
+    static Long[] createQueries(List<Long> list, double hitRatio, long seed) {
+        Random random = new Random(seed);
+        Long[] queries = new Long[NUM_QUERIES];
+        for (int q = 0; q < NUM_QUERIES; q++) {
+            if (random.nextDouble() < hitRatio) {
+                queries[q] = list.get(random.nextInt(list.size()));
+            } else {
+                queries[q] = 2L * random.nextInt(list.size()) + 1;
+            }
+        }
+        return queries;
+    }
+}
@@ -1,26 +1,69 @@
 import models.Purchase;
 import models.PurchaseTracker;
+import models.PurchaseWindow;
 
-import java.util.Comparator;
+import java.io.File;
+import java.util.List;
 
 public class SupermarketStatisticsMain {
 
+    private static final String USAGE = "Usage: SupermarketStatisticsMain [--snapshot=<file>] [--metrics] [--week]\n"
+            + "  --snapshot=<file>  restart from the snapshot file if it exists, and save the snapshot afterwards\n"
+            + "  --metrics          expose the import metrics through JMX, and print them after the import\n"
+            + "  --week             also print the best sales revenue of the most recent week";
+
     public static void main(String[] args) {
+        String snapshotPath = null;
+        boolean showMetrics = false;
+        boolean showWeek = false;
+        for (String arg : args) {
+            if (arg.startsWith("--snapshot=")) {
+                snapshotPath = arg.substring("--snapshot=".length());
+            } else if (arg.equals("--metrics")) {
+                showMetrics = true;
+            } else if (arg.equals("--week")) {
+                showWeek = true;
+            } else {
+                System.out.println(USAGE);
+                return;
+            }
+        }
+
         System.out.println("Welcome to the HvA Supermarket Statistics processor\n");
 
         PurchaseTracker purchaseTracker = new PurchaseTracker();
+        if (showMetrics) {
+            purchaseTracker.getImportMetrics().registerMBean("purchases");
+        }
 
-        purchaseTracker.importProductsFromVault("/products.txt");
+        if (snapshotPath != null && new File(snapshotPath).exists()) {
+            // restart from the snapshot and merge only the vault files that are new since then
+            purchaseTracker.loadSnapshot(snapshotPath);
+            purchaseTracker.mergeNewPurchasesFromVault("/purchases");
+        } else {
+            purchaseTracker.importProductsFromVault("/products.txt");
 
-        purchaseTracker.importPurchasesFromVault("/purchases");
+            purchaseTracker.importPurchasesFromVault("/purchases");
+        }
+        if (showMetrics) {
+            System.out.printf("Import metrics: %s\n", purchaseTracker.getImportMetrics());
+        }
+        if (snapshotPath != null) {
+            purchaseTracker.saveSnapshot(snapshotPath);
+        }
 
-        purchaseTracker.showTops(5, "worst sales volume",
-                Comparator.comparing(Purchase::getCount)
-        );
-        purchaseTracker.showTops(5, "best sales revenue",
-                Comparator.comparing(Purchase::getRevenue).reversed()
-        );
+        purchaseTracker.showTops(5, "worst sales volume", PurchaseTracker.WORST_VOLUME);
+        purchaseTracker.showTops(5, "best sales revenue", PurchaseTracker.BEST_REVENUE);
 
         purchaseTracker.showTotals();
+
+        if (showWeek) {
+            PurchaseWindow week = purchaseTracker.importPurchaseWindowFromVault("/purchases", PurchaseWindow.WEEK);
+            System.out.printf("5 purchases with best sales revenue from %s until %s:\n", week.getFirstDay(), week.getLastDay());
+            List<Purchase> weekTops = week.tops(5, PurchaseTracker.BEST_REVENUE);
+            for (int rank = 0; rank < weekTops.size(); rank++) {
+                System.out.printf("%d: %s\n", rank + 1, weekTops.get(rank));
+            }
+        }
     }
 }
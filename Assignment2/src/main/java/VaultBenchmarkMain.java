@@ -0,0 +1,81 @@
+import models.PurchaseTracker;
+import models.VaultGenerator;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.Comparator;
+import java.util.stream.Stream;
+
+/**
+ * Generates synthetic vaults of increasing scale and reports the import throughput and memory use
+ * of the PurchaseTracker at each scale, in every import mode.
+ * usage: VaultBenchmarkMain [seed [maxScale]]
+ */
+public class VaultBenchmarkMain {
+
+    private static final int NUM_PRODUCTS = 100000;
+    private static final int NUM_LINES_PER_FILE = 1000;
+    private static final int NUM_STORES_PER_CITY = 10;
+
+    public static void main(String[] args) throws IOException {
+        long seed = args.length > 0 ? Long.parseLong(args[0]) : 20211001L;
+        int maxScale = args.length > 1 ? Integer.parseInt(args[1]) : 100;
+
+        System.out.println("Welcome to the HvA Supermarket vault benchmark\n");
+        System.out.printf("%8s %10s %10s %12s %10s %12s %12s %10s\n",
+                "scale", "mode", "files", "lines", "MB", "seconds", "lines/sec", "heap MB");
+
+        // every scale adds days, cities grow with the square root of the scale
+        for (int scale = 1; scale <= maxScale; scale *= 10) {
+            int numCities = (int) Math.ceil(Math.sqrt(scale));
+            int numDays = (int) Math.ceil((double) scale / numCities);
+            VaultGenerator generator = new VaultGenerator(seed, numDays, numCities, NUM_STORES_PER_CITY,
+                    NUM_PRODUCTS, NUM_LINES_PER_FILE);
+            Path root = Files.createTempDirectory("vault");
+            try {
+                generator.generate(root, LocalDate.of(2021, 10, 1));
+                for (PurchaseTracker.ImportMode mode : PurchaseTracker.ImportMode.values()) {
+                    benchmark(scale, mode, generator, root);
+                }
+            } finally {
+                deleteRecursively(root);
+            }
+        }
+    }
+
+    private static void benchmark(int scale, PurchaseTracker.ImportMode mode, VaultGenerator generator, Path root) throws IOException {
+        long numBytes;
+        try (Stream<Path> paths = Files.walk(root.resolve("purchases"))) {
+            numBytes = paths.filter(Files::isRegularFile).mapToLong(p -> p.toFile().length()).sum();
+        }
+
+        Runtime runtime = Runtime.getRuntime();
+        System.gc();
+        long heapBefore = runtime.totalMemory() - runtime.freeMemory();
+
+        long started = System.nanoTime();
+        PurchaseTracker purchaseTracker = new PurchaseTracker();
+        purchaseTracker.setImportMode(mode);
+        purchaseTracker.importProductsFromFile(root.resolve("products.txt").toString());
+        purchaseTracker.mergeNewPurchasesFromDirectory(root.resolve("purchases").toString());
+        double seconds = (System.nanoTime() - started) / 1E9;
+
+        System.gc();
+        long heapAfter = runtime.totalMemory() - runtime.freeMemory();
+
+        System.out.printf("%8d %10s %10d %12d %10.1f %12.3f %12.0f %10.1f\n",
+                scale, mode, generator.getNumFiles(), generator.getNumLines(), numBytes / 1E6,
+                seconds, generator.getNumLines() / seconds, (heapAfter - heapBefore) / 1E6);
+
+        // keep the tracker reachable until its memory has been measured
+        if (purchaseTracker.getPurchases().isEmpty()) System.out.println("No purchases were imported.");
+    }
+
+    private static void deleteRecursively(Path root) throws IOException {
+        try (Stream<Path> paths = Files.walk(root)) {
+            paths.sorted(Comparator.reverseOrder()).forEach(p -> p.toFile().delete());
+        }
+    }
+}
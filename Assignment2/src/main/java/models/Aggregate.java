@@ -0,0 +1,108 @@
+package models;
+
+import java.util.function.ToDoubleFunction;
+
+/**
+ * A named sum/count/min/max accumulator over the items of an OrderedList,
+ * which is maintained incrementally by the list whenever items are added, removed, replaced or merged.
+ * The mapper shall only depend upon item state that changes through operations of the list itself.
+ *
+ * @param <E> the type of items in the list
+ */
+public class Aggregate<E> {
+    private final String name;
+    private final ToDoubleFunction<E> mapper;
+    private final Iterable<E> source;           // the items of the list, to recalculate min and max after removals
+    private double sum;
+    private int count;
+    private double min;
+    private double max;
+    private boolean minMaxStale;                // min and max need recalculation, because a bound has been removed
+
+    Aggregate(String name, ToDoubleFunction<E> mapper, Iterable<E> source) {
+        this.name = name;
+        this.mapper = mapper;
+        this.source = source;
+        this.rebuild();
+    }
+
+    /**
+     * accounts for a new item in the list
+     * @param item
+     */
+    void added(E item) {
+        if (item == null) return;
+        double value = this.mapper.applyAsDouble(item);
+        this.sum += value;
+        this.count++;
+        if (!this.minMaxStale) {
+            this.min = Math.min(this.min, value);
+            this.max = Math.max(this.max, value);
+        }
+    }
+
+    /**
+     * accounts for an item that has been taken out of the list
+     * @param item
+     */
+    void removed(E item) {
+        if (item == null) return;
+        double value = this.mapper.applyAsDouble(item);
+        this.sum -= value;
+        this.count--;
+        // min and max cannot be repaired incrementally if a bound leaves the list
+        if (value <= this.min || value >= this.max) this.minMaxStale = true;
+    }
+
+    /**
+     * recalculates all accumulators by a full scan of the list
+     */
+    void rebuild() {
+        this.sum = 0;
+        this.count = 0;
+        this.min = Double.POSITIVE_INFINITY;
+        this.max = Double.NEGATIVE_INFINITY;
+        this.minMaxStale = false;
+        for (E item : this.source) {
+            this.added(item);
+        }
+    }
+
+    private void refreshMinMax() {
+        if (this.minMaxStale) {
+            this.rebuild();
+        }
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public double getSum() {
+        return sum;
+    }
+
+    public int getCount() {
+        return count;
+    }
+
+    /**
+     * @return  the smallest mapped value in the list, or +infinity if the list is empty
+     */
+    public double getMin() {
+        refreshMinMax();
+        return min;
+    }
+
+    /**
+     * @return  the largest mapped value in the list, or -infinity if the list is empty
+     */
+    public double getMax() {
+        refreshMinMax();
+        return max;
+    }
+
+    public String toString() {
+        return this.name + "/" + this.count + "/" + this.sum;
+    }
+}
@@ -0,0 +1,55 @@
+package models;
+
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.ToDoubleFunction;
+
+/**
+ * Keeps the registered aggregates of an OrderedList up to date with the changes to its items.
+ *
+ * @param <E> the type of items in the list
+ */
+class AggregateRegistry<E> {
+    private final Iterable<E> source;
+    private final Map<String, Aggregate<E>> aggregates = new LinkedHashMap<>();
+
+    AggregateRegistry(Iterable<E> source) {
+        this.source = source;
+    }
+
+    Aggregate<E> register(String name, ToDoubleFunction<E> mapper) {
+        Aggregate<E> aggregate = new Aggregate<>(name, mapper, this.source);
+        this.aggregates.put(name, aggregate);
+        return aggregate;
+    }
+
+    Aggregate<E> get(String name) {
+        return this.aggregates.get(name);
+    }
+
+    void added(E item) {
+        for (Aggregate<E> aggregate : this.aggregates.values()) {
+            aggregate.added(item);
+        }
+    }
+
+    void addedAll(Collection<? extends E> items) {
+        if (this.aggregates.isEmpty()) return;
+        for (E item : items) {
+            this.added(item);
+        }
+    }
+
+    void removed(E item) {
+        for (Aggregate<E> aggregate : this.aggregates.values()) {
+            aggregate.removed(item);
+        }
+    }
+
+    void rebuild() {
+        for (Aggregate<E> aggregate : this.aggregates.values()) {
+            aggregate.rebuild();
+        }
+    }
+}
@@ -0,0 +1,401 @@
+package models;
+
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Objects;
+import java.util.function.BinaryOperator;
+import java.util.function.ToDoubleFunction;
+
+/**
+ * An ordered list that keeps all items fully sorted at all times, in a sequence of sorted chunks of bounded capacity,
+ * like the leaf level of a B+-tree.
+ * An ordered insert or delete locates its chunk by binary search on the last items of the chunks,
+ * and then only shifts the items within that one chunk. Full chunks are split, sparse chunks are joined with a neighbour.
+ * With chunks of capacity B, search takes O(log n) and insert and delete take O(B + n/B) time,
+ * which includes the recount of the chunk offsets and the shift of the chunk list.
+ * The chunk capacity therefore grows along with the list, such that B stays between sqrt(n) and 2 sqrt(n)
+ * once the list has outgrown the minimum capacity,
+ * and insert and delete take O(sqrt(n)) time. Chunks that fill up are enlarged to the current capacity before they are split.
+ * The capacity does not shrink when items are removed, only clear() resets it.
+ * Items are placed by their ordening, so insertion at an arbitrary index is not supported.
+ *
+ * @param <E> the type of items in the list
+ */
+public class ChunkedOrderedList<E>
+        extends AbstractList<E>
+        implements OrderedList<E> {
+
+    private static final int DEFAULT_CHUNK_CAPACITY = 512;      // the minimum capacity of a chunk
+
+    private static class Chunk {
+        Object[] items;                 // the capacity of the chunk is items.length
+        int size;
+
+        Chunk(int capacity) {
+            this.items = new Object[capacity];
+            this.size = 0;
+        }
+    }
+
+    protected final Comparator<? super E> ordening;
+    private final int minChunkCapacity;
+    private int chunkCapacity;                  // the capacity of new chunks, at least sqrt(size)
+    private final ArrayList<Chunk> chunks = new ArrayList<>();
+    private int[] offsets = new int[1];          // offsets[c] = the number of items in all chunks before chunk c
+    private boolean offsetsStale = false;
+    private int size;
+    // representation-invariant
+    //      all items across all chunks, in chunk order, have been ordered by the ordening comparator
+    //      there is always at least one chunk, and a chunk can only be empty if it is the only chunk
+    private final AggregateRegistry<E> aggregates = new AggregateRegistry<>(this);
+
+    public ChunkedOrderedList(Comparator<? super E> ordening) {
+        this(ordening, DEFAULT_CHUNK_CAPACITY);
+    }
+
+    /**
+     * @param ordening
+     * @param minChunkCapacity  the capacity of the chunks of a small list, which grows with the square root of its size
+     */
+    public ChunkedOrderedList(Comparator<? super E> ordening, int minChunkCapacity) {
+        super();
+        if (minChunkCapacity < 4) throw new IllegalArgumentException("The capacity of a chunk shall be at least 4: " + minChunkCapacity);
+        this.ordening = ordening;
+        this.minChunkCapacity = minChunkCapacity;
+        this.chunkCapacity = minChunkCapacity;
+        this.chunks.add(new Chunk(chunkCapacity));
+        this.size = 0;
+    }
+
+    @Override
+    public Comparator<? super E> getOrdening() {
+        return this.ordening;
+    }
+
+    @Override
+    public Aggregate<E> registerAggregate(String name, ToDoubleFunction<E> mapper) {
+        return this.aggregates.register(name, mapper);
+    }
+
+    @Override
+    public Aggregate<E> getAggregate(String name) {
+        return this.aggregates.get(name);
+    }
+
+    @Override
+    public int size() {
+        return this.size;
+    }
+
+    /**
+     * @return the number of chunks that currently hold the items
+     */
+    public int getNumChunks() {
+        return this.chunks.size();
+    }
+
+    /**
+     * @return the capacity of new chunks, which grows with the square root of the size of the list
+     */
+    public int getChunkCapacity() {
+        return this.chunkCapacity;
+    }
+
+    @SuppressWarnings("unchecked")
+    private E itemAt(Chunk chunk, int position) {
+        return (E) chunk.items[position];
+    }
+
+    private void refreshOffsets() {
+        if (!this.offsetsStale) return;
+        if (this.offsets.length < this.chunks.size() + 1) {
+            this.offsets = new int[2 * this.chunks.size() + 1];
+        }
+        int offset = 0;
+        for (int c = 0; c < this.chunks.size(); c++) {
+            this.offsets[c] = offset;
+            offset += this.chunks.get(c).size;
+        }
+        this.offsets[this.chunks.size()] = offset;
+        this.offsetsStale = false;
+    }
+
+    // finds the chunk that holds the item at the given index
+    private int chunkOfIndex(int index) {
+        refreshOffsets();
+        int low = 0;
+        int high = this.chunks.size() - 1;
+        while (low < high) {
+            int mid = (low + high + 1) >>> 1;
+            if (this.offsets[mid] <= index) {
+                low = mid;
+            } else {
+                high = mid - 1;
+            }
+        }
+        return low;
+    }
+
+    @Override
+    public E get(int index) {
+        Objects.checkIndex(index, this.size);
+        int c = chunkOfIndex(index);
+        return itemAt(this.chunks.get(c), index - this.offsets[c]);
+    }
+
+    /**
+     * finds the first chunk that may hold the bound of searchItem, by binary search on the last items of the chunks
+     * @param searchItem
+     * @param upper     whether to find the upper bound (the first item that succeeds searchItem)
+     *                  or the lower bound (the first item that does not precede searchItem)
+     * @return          the index of the chunk, the last chunk if all items precede the bound
+     */
+    private int chunkOfBound(E searchItem, boolean upper) {
+        int low = 0;
+        int high = this.chunks.size() - 1;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            Chunk chunk = this.chunks.get(mid);
+            int comparison = this.ordening.compare(itemAt(chunk, chunk.size - 1), searchItem);
+            if (comparison < 0 || (upper && comparison == 0)) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    // finds the position of the bound of searchItem within the chunk
+    private int positionOfBound(Chunk chunk, E searchItem, boolean upper) {
+        int low = 0;
+        int high = chunk.size;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            int comparison = this.ordening.compare(itemAt(chunk, mid), searchItem);
+            if (comparison < 0 || (upper && comparison == 0)) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    private int bound(E searchItem, boolean upper) {
+        int c = chunkOfBound(searchItem, upper);
+        int position = positionOfBound(this.chunks.get(c), searchItem, upper);
+        refreshOffsets();
+        return this.offsets[c] + position;
+    }
+
+    @Override
+    public int lowerBound(E searchItem) {
+        return bound(searchItem, false);
+    }
+
+    @Override
+    public int upperBound(E searchItem) {
+        return bound(searchItem, true);
+    }
+
+    /**
+     * all items are sorted at all times
+     */
+    @Override
+    public void sort() {
+    }
+
+    @Override
+    public void sort(Comparator<? super E> c) {
+        if (c != null && c != this.ordening) {
+            throw new UnsupportedOperationException("A ChunkedOrderedList can only be ordered by its own ordening");
+        }
+    }
+
+    /**
+     * inserts the item at its ordered position, after any items that are equal by the ordening
+     * @param item
+     * @return true
+     */
+    @Override
+    public boolean add(E item) {
+        int c = chunkOfBound(item, true);
+        Chunk chunk = this.chunks.get(c);
+        int position = positionOfBound(chunk, item, true);
+        // keep the capacity of new chunks at sqrt(size) or more
+        while ((long) this.chunkCapacity * this.chunkCapacity <= this.size) {
+            this.chunkCapacity *= 2;
+        }
+        if (chunk.size == chunk.items.length && chunk.items.length < this.chunkCapacity) {
+            // enlarge the full chunk to the current capacity
+            chunk.items = Arrays.copyOf(chunk.items, this.chunkCapacity);
+        } else if (chunk.size == chunk.items.length) {
+            // split the full chunk into two halves
+            Chunk upperHalf = new Chunk(this.chunkCapacity);
+            int half = chunk.size / 2;
+            upperHalf.size = chunk.size - half;
+            System.arraycopy(chunk.items, half, upperHalf.items, 0, upperHalf.size);
+            Arrays.fill(chunk.items, half, chunk.size, null);
+            chunk.size = half;
+            this.chunks.add(c + 1, upperHalf);
+            if (position > half) {
+                chunk = upperHalf;
+                position -= half;
+            }
+        }
+        System.arraycopy(chunk.items, position, chunk.items, position + 1, chunk.size - position);
+        chunk.items[position] = item;
+        chunk.size++;
+        this.size++;
+        this.offsetsStale = true;
+        this.modCount++;
+        this.aggregates.added(item);
+        return true;
+    }
+
+    /**
+     * items are placed by their ordening, use add(item) instead
+     */
+    @Override
+    public void add(int index, E item) {
+        throw new UnsupportedOperationException("A ChunkedOrderedList places items by their ordening, use add(item)");
+    }
+
+    /**
+     * replaces the item at index by an item that takes the same position in the ordening
+     * @throws IllegalArgumentException if the item would break the ordening at index
+     */
+    @Override
+    public E set(int index, E item) {
+        Objects.checkIndex(index, this.size);
+        if ((index > 0 && this.ordening.compare(get(index - 1), item) > 0) ||
+                (index < this.size - 1 && this.ordening.compare(item, get(index + 1)) > 0)) {
+            throw new IllegalArgumentException("The item does not fit the ordening at index " + index);
+        }
+        E previous = replace(index, item);
+        this.aggregates.removed(previous);
+        this.aggregates.added(item);
+        return previous;
+    }
+
+    // replaces the item at index without checking the ordening and without accounting for the aggregates
+    private E replace(int index, E item) {
+        int c = chunkOfIndex(index);
+        Chunk chunk = this.chunks.get(c);
+        E previous = itemAt(chunk, index - this.offsets[c]);
+        chunk.items[index - this.offsets[c]] = item;
+        return previous;
+    }
+
+    @Override
+    public E remove(int index) {
+        Objects.checkIndex(index, this.size);
+        int c = chunkOfIndex(index);
+        Chunk chunk = this.chunks.get(c);
+        int position = index - this.offsets[c];
+        E removed = itemAt(chunk, position);
+        System.arraycopy(chunk.items, position + 1, chunk.items, position, chunk.size - position - 1);
+        chunk.size--;
+        chunk.items[chunk.size] = null;
+        this.size--;
+        joinSparseChunk(c);
+        this.offsetsStale = true;
+        this.modCount++;
+        this.aggregates.removed(removed);
+        return removed;
+    }
+
+    @Override
+    public boolean remove(Object removeThisObject) {
+        int index = this.indexOf(removeThisObject);
+        if (index < 0) return false;
+        this.remove(index);
+        return true;
+    }
+
+    // joins a chunk that has become sparse with its next (or previous) neighbour, if they fit together
+    private void joinSparseChunk(int c) {
+        Chunk chunk = this.chunks.get(c);
+        if (chunk.size >= chunk.items.length / 4 || this.chunks.size() == 1) return;
+        int left = c + 1 < this.chunks.size() ? c : c - 1;
+        Chunk leftChunk = this.chunks.get(left);
+        Chunk rightChunk = this.chunks.get(left + 1);
+        if (leftChunk.size + rightChunk.size <= this.chunkCapacity * 3 / 4) {
+            if (leftChunk.items.length < leftChunk.size + rightChunk.size) {
+                leftChunk.items = Arrays.copyOf(leftChunk.items, this.chunkCapacity);
+            }
+            System.arraycopy(rightChunk.items, 0, leftChunk.items, leftChunk.size, rightChunk.size);
+            leftChunk.size += rightChunk.size;
+            this.chunks.remove(left + 1);
+        } else if (chunk.size == 0) {
+            this.chunks.remove(c);
+        }
+    }
+
+    @Override
+    public void clear() {
+        this.chunkCapacity = this.minChunkCapacity;
+        this.chunks.clear();
+        this.chunks.add(new Chunk(this.chunkCapacity));
+        this.size = 0;
+        this.offsetsStale = true;
+        this.modCount++;
+        this.aggregates.rebuild();
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public int indexOf(Object item) {
+        if (item != null) {
+            return indexOfByBinarySearch((E) item);
+        } else {
+            return -1;
+        }
+    }
+
+    /**
+     * finds the position of an item that matches searchItem by the ordening, by binary search over the chunks.
+     * All items are sorted, so no linear search is ever needed.
+     * @param searchItem
+     * @return  the position of the first matching item, or -1 if no item matches
+     */
+    @Override
+    public int indexOfByBinarySearch(E searchItem) {
+        if (searchItem == null || this.size == 0) return -1;
+        int index = this.lowerBound(searchItem);
+        if (index < this.size && this.ordening.compare(get(index), searchItem) == 0) {
+            return index;
+        }
+        return -1;
+    }
+
+    /**
+     * finds a match of newItem in the list and applies the merger operator with the newItem to that match
+     * i.e. the found match is replaced by the outcome of the merge between the match and the newItem
+     * If no match is found in the list, the newItem is inserted at its ordered position.
+     * @param newItem
+     * @param merger    a function that takes two items and returns an item that contains the merged content of
+     *                  the two items according to some merging rule; the outcome shall match newItem by the ordening
+     * @return  whether a new item was added to the list or not
+     */
+    @Override
+    public boolean merge(E newItem, BinaryOperator<E> merger) {
+        if (newItem == null) return false;
+        int matchedItemIndex = this.indexOfByBinarySearch(newItem);
+        if (matchedItemIndex < 0) {
+            this.add(newItem);
+            return true;
+        } else {
+            E matchedItem = get(matchedItemIndex);
+            // the merger may update the matched item in place, so account for its removal before merging
+            this.aggregates.removed(matchedItem);
+            E merged = merger.apply(newItem, matchedItem);
+            replace(matchedItemIndex, merged);
+            this.aggregates.added(merged);
+            return false;
+        }
+    }
+}
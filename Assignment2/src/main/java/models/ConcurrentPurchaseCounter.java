@@ -0,0 +1,73 @@
+package models;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Accumulates live purchase events (barcode, count) from many checkout streams concurrently.
+ * Every barcode has its own LongAdder, which spreads contended updates over striped cells,
+ * such that no global lock is taken on the event path.
+ */
+public class ConcurrentPurchaseCounter {
+    private final ConcurrentHashMap<Long, LongAdder> counts = new ConcurrentHashMap<>();
+
+    /**
+     * registers a purchase event; can be called from any thread
+     * @param barcode   the barcode of the purchased product
+     * @param count     the number of items purchased
+     */
+    public void record(long barcode, int count) {
+        LongAdder adder = this.counts.get(barcode);
+        if (adder == null) {
+            adder = this.counts.computeIfAbsent(barcode, b -> new LongAdder());
+        }
+        adder.add(count);
+    }
+
+    /**
+     * @param barcode
+     * @return  the accumulated count of the barcode at this moment, or 0 if it has not been purchased
+     */
+    public long getCount(long barcode) {
+        LongAdder adder = this.counts.get(barcode);
+        return adder != null ? adder.sum() : 0;
+    }
+
+    /**
+     * @return  the number of distinct barcodes that have been recorded
+     */
+    public int size() {
+        return this.counts.size();
+    }
+
+    /**
+     * creates a snapshot of all accumulated counts as a list of purchases ordered by barcode
+     * each count is exact at the moment that it is read, and includes all events that completed before the snapshot started;
+     * events that arrive while the snapshot is being taken may or may not be included
+     * barcodes that cannot be resolved in the products list are left out
+     * a purchase holds an int count, so the snapshot fails on an accumulated count beyond the int range,
+     * rather than to misstate the totals; getCount still tells the exact count
+     *
+     * @param products  a list of products ordered and searchable by barcode
+     * @param purchases the (empty) list to receive the snapshot
+     * @return          the purchases list, sorted by barcode
+     * @throws ArithmeticException  if the count of a barcode exceeds the int range of a purchase
+     */
+    public OrderedList<Purchase> snapshot(List<Product> products, OrderedList<Purchase> purchases) {
+        for (Map.Entry<Long, LongAdder> entry : this.counts.entrySet()) {
+            Purchase purchase = Purchase.fromBarcode(entry.getKey(), Purchase.toCount(entry.getKey(), entry.getValue().sum()), products);
+            if (purchase != null) purchases.add(purchase);
+        }
+        purchases.sort();
+        return purchases;
+    }
+
+    /**
+     * discards all accumulated counts
+     */
+    public void clear() {
+        this.counts.clear();
+    }
+}
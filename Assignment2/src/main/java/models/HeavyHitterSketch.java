@@ -0,0 +1,219 @@
+package models;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * An approximate top-k sketch of the best selling barcodes in an unbounded stream of purchase events,
+ * by the Space-Saving algorithm in fixed memory of capacity counters.
+ * The counters are organised in an indexed min-heap on their counts, such that the least counted barcode
+ * can be evicted in O(log capacity) time when a new barcode arrives.
+ * Error bounds: every estimated count overestimates the true count by at most its error,
+ * and every error is at most getErrorBound() = totalCount / capacity.
+ * Any barcode with a true count above the error bound is guaranteed to be in the sketch.
+ * Sketches of different branches can be merged.
+ */
+public class HeavyHitterSketch {
+
+    /**
+     * the estimated count of a barcode, which exceeds the true count by at most error
+     */
+    public static class Entry {
+        private final long barcode;
+        private final long count;
+        private final long error;
+
+        public Entry(long barcode, long count, long error) {
+            this.barcode = barcode;
+            this.count = count;
+            this.error = error;
+        }
+
+        public long getBarcode() {
+            return barcode;
+        }
+
+        public long getCount() {
+            return count;
+        }
+
+        public long getError() {
+            return error;
+        }
+
+        /**
+         * @return  the guaranteed minimum of the true count
+         */
+        public long getGuaranteedCount() {
+            return count - error;
+        }
+
+        public String toString() {
+            return barcode + "/" + count + "/" + error;
+        }
+    }
+
+    private final int capacity;
+    private final long[] barcodes;
+    private final long[] counts;
+    private final long[] errors;
+    private final Map<Long, Integer> positions;     // the heap position of every barcode in the sketch
+    private int size;
+    private long totalCount;
+
+    public HeavyHitterSketch(int capacity) {
+        if (capacity <= 0) throw new IllegalArgumentException("The capacity of a sketch shall be positive: " + capacity);
+        this.capacity = capacity;
+        this.barcodes = new long[capacity];
+        this.counts = new long[capacity];
+        this.errors = new long[capacity];
+        this.positions = new HashMap<>(2 * capacity);
+        this.size = 0;
+        this.totalCount = 0;
+    }
+
+    /**
+     * registers a purchase event
+     * @param barcode
+     * @param count     the number of items purchased, shall not be negative
+     */
+    public void offer(long barcode, long count) {
+        this.totalCount += count;
+        Integer position = this.positions.get(barcode);
+        if (position != null) {
+            this.counts[position] += count;
+            sink(position);
+        } else if (this.size < this.capacity) {
+            set(this.size, barcode, count, 0);
+            this.size++;
+            swim(this.size - 1);
+        } else {
+            // evict the least counted barcode, the new barcode inherits its count as the error
+            long minCount = this.counts[0];
+            this.positions.remove(this.barcodes[0]);
+            set(0, barcode, minCount + count, minCount);
+            sink(0);
+        }
+    }
+
+    /**
+     * merges the counts of another sketch into this sketch, e.g. of another branch
+     * a barcode that is missing from a full sketch is estimated at the minimum count of that sketch
+     * @param other
+     */
+    public void merge(HeavyHitterSketch other) {
+        long thisMin = this.size == this.capacity ? this.counts[0] : 0;
+        long otherMin = other.size == other.capacity ? other.counts[0] : 0;
+
+        Map<Long, long[]> combined = new HashMap<>(2 * (this.size + other.size));
+        for (int i = 0; i < this.size; i++) {
+            combined.put(this.barcodes[i], new long[]{this.counts[i] + otherMin, this.errors[i] + otherMin});
+        }
+        for (int i = 0; i < other.size; i++) {
+            long[] entry = combined.get(other.barcodes[i]);
+            if (entry == null) {
+                combined.put(other.barcodes[i], new long[]{other.counts[i] + thisMin, other.errors[i] + thisMin});
+            } else {
+                // replace the estimate of the missing count by the actual count in the other sketch
+                entry[0] += other.counts[i] - otherMin;
+                entry[1] += other.errors[i] - otherMin;
+            }
+        }
+
+        // retain the capacity largest counts
+        List<Map.Entry<Long, long[]>> entries = new ArrayList<>(combined.entrySet());
+        entries.sort(Comparator.comparingLong((Map.Entry<Long, long[]> e) -> e.getValue()[0]).reversed());
+        long newTotalCount = this.totalCount + other.totalCount;
+        this.positions.clear();
+        this.size = 0;
+        for (int i = 0; i < entries.size() && i < this.capacity; i++) {
+            set(this.size, entries.get(i).getKey(), entries.get(i).getValue()[0], entries.get(i).getValue()[1]);
+            this.size++;
+            swim(this.size - 1);
+        }
+        this.totalCount = newTotalCount;
+    }
+
+    /**
+     * @param n
+     * @return  the n barcodes with the highest estimated counts, highest first
+     */
+    public List<Entry> topK(int n) {
+        Integer[] order = new Integer[this.size];
+        for (int i = 0; i < this.size; i++) {
+            order[i] = i;
+        }
+        Arrays.sort(order, (i, j) -> Long.compare(this.counts[j], this.counts[i]));
+        List<Entry> tops = new ArrayList<>();
+        for (int rank = 0; rank < n && rank < this.size; rank++) {
+            int i = order[rank];
+            tops.add(new Entry(this.barcodes[i], this.counts[i], this.errors[i]));
+        }
+        return tops;
+    }
+
+    /**
+     * @param barcode
+     * @return  the estimated count of the barcode, which is an upper bound of its true count
+     */
+    public long estimateCount(long barcode) {
+        Integer position = this.positions.get(barcode);
+        if (position != null) return this.counts[position];
+        return this.size == this.capacity ? this.counts[0] : 0;
+    }
+
+    /**
+     * @return  the maximum overestimation of any count in the sketch
+     */
+    public long getErrorBound() {
+        return this.totalCount / this.capacity;
+    }
+
+    public long getTotalCount() {
+        return totalCount;
+    }
+
+    public int getCapacity() {
+        return capacity;
+    }
+
+    private void set(int position, long barcode, long count, long error) {
+        this.barcodes[position] = barcode;
+        this.counts[position] = count;
+        this.errors[position] = error;
+        this.positions.put(barcode, position);
+    }
+
+    private void exch(int i, int j) {
+        long barcode = this.barcodes[i];
+        long count = this.counts[i];
+        long error = this.errors[i];
+        set(i, this.barcodes[j], this.counts[j], this.errors[j]);
+        set(j, barcode, count, error);
+    }
+
+    // repairs the min-heap condition upwards from position
+    private void swim(int position) {
+        while (position > 0) {
+            int parent = (position - 1) / 2;
+            if (this.counts[parent] <= this.counts[position]) break;
+            exch(position, parent);
+            position = parent;
+        }
+    }
+
+    // repairs the min-heap condition downwards from position
+    private void sink(int position) {
+        while (2 * position + 1 < this.size) {
+            int child = 2 * position + 1;
+            if (child + 1 < this.size && this.counts[child + 1] < this.counts[child]) child++;
+            if (this.counts[position] <= this.counts[child]) break;
+            exch(position, child);
+            position = child;
+        }
+    }
+}
@@ -0,0 +1,46 @@
+package models;
+
+/**
+ * Receives the progress of the purchase imports of a PurchaseTracker, e.g. to monitor where the ingest time goes.
+ * All methods are called on the importing thread, and should return quickly.
+ */
+public interface ImportListener {
+
+    /**
+     * the stages of the import of the vault
+     */
+    enum Stage {
+        WALK,       // listing the folders of the vault and checking the files against the checkpoint
+        PARSE,      // reading the text lines of a file and parsing them into barcodes and counts
+        RESOLVE,    // looking up the products of the barcodes in the catalog
+        MERGE       // merging the purchases of a file into the accumulated purchases, or retracting them
+    }
+
+    /**
+     * reports a file that has been imported
+     *
+     * @param filePath
+     * @param numBytes              the size of the file, as stored in the vault
+     * @param numLines              the number of lines that have been read
+     * @param numParseFailures      the number of corrupt or incomplete lines, which have been skipped
+     * @param numUnknownBarcodes    the number of lines with a barcode that is not in the catalog, which have been skipped
+     */
+    void fileImported(String filePath, long numBytes, long numLines, long numParseFailures, long numUnknownBarcodes);
+
+    /**
+     * reports the time that has been spent in a stage of the import
+     *
+     * @param stage
+     * @param nanos the elapsed time in nanoseconds
+     */
+    void stageCompleted(Stage stage, long nanos);
+
+    /**
+     * reports the end of an import of a vault folder, after all its files have been reported
+     * the stages may overlap in a pipelined import, so only this elapsed time tells the duration of the import
+     *
+     * @param nanos the elapsed wall-clock time of the whole import in nanoseconds
+     */
+    default void importCompleted(long nanos) {
+    }
+}
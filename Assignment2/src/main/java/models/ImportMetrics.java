@@ -0,0 +1,181 @@
+package models;
+
+import javax.management.InstanceAlreadyExistsException;
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Accumulates the counts and stage timings of all purchase imports that it listens to.
+ * The rates are based on the wall-clock time of the imports, as the stages of a pipelined import overlap.
+ * The metrics can be read directly or through JMX, after registerMBean.
+ */
+public class ImportMetrics implements ImportListener, ImportMetricsMXBean {
+
+    private final LongAdder numFiles = new LongAdder();
+    private final LongAdder numLines = new LongAdder();
+    private final LongAdder numBytes = new LongAdder();
+    private final LongAdder numParseFailures = new LongAdder();
+    private final LongAdder numUnknownBarcodes = new LongAdder();
+    private final Map<Stage, LongAdder> stageNanos = new EnumMap<>(Stage.class);
+    private final LongAdder importNanos = new LongAdder();
+
+    static final int NUM_RECENT_IMPORTS = 10;
+    private final LongAdder linesSinceImport = new LongAdder();    // the lines of the import in progress
+    private final long[] recentLines = new long[NUM_RECENT_IMPORTS];   // a ring of the lines of the most recent imports
+    private final long[] recentNanos = new long[NUM_RECENT_IMPORTS];   // and their wall-clock times
+    private int numRecentImports = 0;
+
+    public ImportMetrics() {
+        for (Stage stage : Stage.values()) {
+            this.stageNanos.put(stage, new LongAdder());
+        }
+    }
+
+    @Override
+    public void fileImported(String filePath, long numBytes, long numLines, long numParseFailures, long numUnknownBarcodes) {
+        this.numFiles.increment();
+        this.numBytes.add(numBytes);
+        this.numLines.add(numLines);
+        this.linesSinceImport.add(numLines);
+        this.numParseFailures.add(numParseFailures);
+        this.numUnknownBarcodes.add(numUnknownBarcodes);
+    }
+
+    @Override
+    public void stageCompleted(Stage stage, long nanos) {
+        this.stageNanos.get(stage).add(nanos);
+    }
+
+    @Override
+    public void importCompleted(long nanos) {
+        this.importNanos.add(nanos);
+        synchronized (this.recentLines) {
+            int slot = this.numRecentImports++ % NUM_RECENT_IMPORTS;
+            this.recentLines[slot] = this.linesSinceImport.sumThenReset();
+            this.recentNanos[slot] = nanos;
+        }
+    }
+
+    /**
+     * registers the metrics with the platform MBean server under models:type=ImportMetrics,name=<name>
+     * a former registration under the same name is replaced
+     *
+     * @param name
+     */
+    public void registerMBean(String name) {
+        try {
+            MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+            ObjectName objectName = new ObjectName("models:type=ImportMetrics,name=" + ObjectName.quote(name));
+            try {
+                server.registerMBean(this, objectName);
+            } catch (InstanceAlreadyExistsException e) {
+                server.unregisterMBean(objectName);
+                server.registerMBean(this, objectName);
+            }
+        } catch (JMException e) {
+            throw new IllegalStateException("Could not register the import metrics " + name, e);
+        }
+    }
+
+    @Override
+    public long getNumFiles() {
+        return this.numFiles.sum();
+    }
+
+    @Override
+    public long getNumLines() {
+        return this.numLines.sum();
+    }
+
+    @Override
+    public long getNumBytes() {
+        return this.numBytes.sum();
+    }
+
+    @Override
+    public long getNumParseFailures() {
+        return this.numParseFailures.sum();
+    }
+
+    @Override
+    public long getNumUnknownBarcodes() {
+        return this.numUnknownBarcodes.sum();
+    }
+
+    public long getStageNanos(Stage stage) {
+        return this.stageNanos.get(stage).sum();
+    }
+
+    @Override
+    public long getWalkMillis() {
+        return this.getStageNanos(Stage.WALK) / 1000000;
+    }
+
+    @Override
+    public long getParseMillis() {
+        return this.getStageNanos(Stage.PARSE) / 1000000;
+    }
+
+    @Override
+    public long getResolveMillis() {
+        return this.getStageNanos(Stage.RESOLVE) / 1000000;
+    }
+
+    @Override
+    public long getMergeMillis() {
+        return this.getStageNanos(Stage.MERGE) / 1000000;
+    }
+
+    @Override
+    public long getImportMillis() {
+        return this.importNanos.sum() / 1000000;
+    }
+
+    @Override
+    public double getLinesPerSecond() {
+        long totalNanos = this.importNanos.sum();
+        return totalNanos > 0 ? this.getNumLines() * 1E9 / totalNanos : 0.0;
+    }
+
+    @Override
+    public double getRecentLinesPerSecond() {
+        long lines = 0, nanos = 0;
+        synchronized (this.recentLines) {
+            for (int i = 0; i < Math.min(this.numRecentImports, NUM_RECENT_IMPORTS); i++) {
+                lines += this.recentLines[i];
+                nanos += this.recentNanos[i];
+            }
+        }
+        return nanos > 0 ? lines * 1E9 / nanos : 0.0;
+    }
+
+    @Override
+    public void reset() {
+        this.numFiles.reset();
+        this.numLines.reset();
+        this.numBytes.reset();
+        this.numParseFailures.reset();
+        this.numUnknownBarcodes.reset();
+        for (LongAdder nanos : this.stageNanos.values()) {
+            nanos.reset();
+        }
+        this.importNanos.reset();
+        synchronized (this.recentLines) {
+            this.linesSinceImport.reset();
+            this.numRecentImports = 0;
+        }
+    }
+
+    public String toString() {
+        return String.format("%d files, %d lines, %d bytes, %d parse failures, %d unknown barcodes, " +
+                        "walk %d ms, parse %d ms, resolve %d ms, merge %d ms, import %d ms, %.0f lines/sec (recently %.0f)",
+                getNumFiles(), getNumLines(), getNumBytes(), getNumParseFailures(), getNumUnknownBarcodes(),
+                getWalkMillis(), getParseMillis(), getResolveMillis(), getMergeMillis(), getImportMillis(),
+                getLinesPerSecond(), getRecentLinesPerSecond());
+    }
+}
@@ -0,0 +1,42 @@
+package models;
+
+/**
+ * The management interface of ImportMetrics, to monitor the purchase imports through JMX
+ */
+public interface ImportMetricsMXBean {
+
+    long getNumFiles();
+
+    long getNumLines();
+
+    long getNumBytes();
+
+    long getNumParseFailures();
+
+    long getNumUnknownBarcodes();
+
+    long getWalkMillis();
+
+    long getParseMillis();
+
+    long getResolveMillis();
+
+    long getMergeMillis();
+
+    /**
+     * @return the elapsed wall-clock time of all imports
+     */
+    long getImportMillis();
+
+    /**
+     * @return the number of lines imported per second of wall-clock time, over all imports since the last reset
+     */
+    double getLinesPerSecond();
+
+    /**
+     * @return the number of lines imported per second of wall-clock time, over the most recent imports only
+     */
+    double getRecentLinesPerSecond();
+
+    void reset();
+}
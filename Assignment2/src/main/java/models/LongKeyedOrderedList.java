@@ -0,0 +1,393 @@
+package models;
+
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Objects;
+import java.util.function.BinaryOperator;
+import java.util.function.ToDoubleFunction;
+import java.util.function.ToLongFunction;
+
+/**
+ * An ordered list specialization for items that are identified by a primitive long key, e.g. a barcode.
+ * The keys are kept in a parallel long[] next to the items, such that search, merge and sort
+ * operate on the primitive keys without any boxing or comparator dispatch.
+ * Searches by key interpolate between the keys at the bounds, which suits the evenly spread barcodes of a catalog.
+ *
+ * @param <E> the type of items in the list
+ */
+public class LongKeyedOrderedList<E>
+        extends AbstractList<E>
+        implements OrderedList<E> {
+
+    private static final int INITIAL_CAPACITY = 16;
+
+    protected final ToLongFunction<? super E> keyExtractor;   // extracts the ordening key of an item
+    protected long[] keys;                                     // keys[i] == keyExtractor.applyAsLong(items[i])
+    protected Object[] items;
+    protected int size;
+    protected int nSorted;                                     // the number of items that have been ordered by key in the list
+    protected long probeCount;                                 // the number of probes into the sorted section by all searches so far
+    // representation-invariant
+    //      all items at index positions 0 <= index < nSorted have been ordered by ascending key
+    //      other items at index position nSorted <= index < size can be in any order amongst themselves
+    //              and also relative to the sorted section
+    private final AggregateRegistry<E> aggregates = new AggregateRegistry<>(this);
+
+    public LongKeyedOrderedList(ToLongFunction<? super E> keyExtractor) {
+        this(keyExtractor, INITIAL_CAPACITY);
+    }
+
+    public LongKeyedOrderedList(ToLongFunction<? super E> keyExtractor, int initialCapacity) {
+        super();
+        this.keyExtractor = keyExtractor;
+        this.keys = new long[Math.max(1, initialCapacity)];
+        this.items = new Object[this.keys.length];
+        this.size = 0;
+        this.nSorted = 0;
+    }
+
+    @Override
+    public Comparator<? super E> getOrdening() {
+        return Comparator.comparingLong(this.keyExtractor);
+    }
+
+    @Override
+    public Aggregate<E> registerAggregate(String name, ToDoubleFunction<E> mapper) {
+        return this.aggregates.register(name, mapper);
+    }
+
+    @Override
+    public Aggregate<E> getAggregate(String name) {
+        return this.aggregates.get(name);
+    }
+
+    public ToLongFunction<? super E> getKeyExtractor() {
+        return this.keyExtractor;
+    }
+
+    /**
+     * @return  the number of probes into the sorted section that have been made by
+     *          the interpolation search on the keys since the last reset, like OrderedArrayList.getProbeCount
+     */
+    public long getProbeCount() {
+        return probeCount;
+    }
+
+    public void resetProbeCount() {
+        this.probeCount = 0;
+    }
+
+    public int getnSorted() {
+        return nSorted;
+    }
+
+    @Override
+    public int size() {
+        return this.size;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public E get(int index) {
+        Objects.checkIndex(index, this.size);
+        return (E) this.items[index];
+    }
+
+    /**
+     * retrieves the key of the item at the given position without dereferencing the item
+     * @param index
+     * @return
+     */
+    public long getKey(int index) {
+        Objects.checkIndex(index, this.size);
+        return this.keys[index];
+    }
+
+    @Override
+    public E set(int index, E item) {
+        E previous = replace(index, item);
+        this.aggregates.removed(previous);
+        this.aggregates.added(item);
+        return previous;
+    }
+
+    // replaces the item at index without accounting for the aggregates
+    private E replace(int index, E item) {
+        E previous = get(index);
+        long key = this.keyExtractor.applyAsLong(item);
+        if (key != this.keys[index] && index < this.nSorted) {
+            // the new key may break the ordening at this position
+            this.nSorted = index;
+        }
+        this.keys[index] = key;
+        this.items[index] = item;
+        return previous;
+    }
+
+    @Override
+    public void add(int index, E item) {
+        if (index < 0 || index > this.size) return; // leave method if it is a wrong index.
+        ensureCapacity(this.size + 1);
+        System.arraycopy(this.keys, index, this.keys, index + 1, this.size - index);
+        System.arraycopy(this.items, index, this.items, index + 1, this.size - index);
+        this.keys[index] = this.keyExtractor.applyAsLong(item);
+        this.items[index] = item;
+        this.size++;
+        this.modCount++;
+        if (index < this.nSorted) this.nSorted = index;
+        this.aggregates.added(item);
+    }
+
+    @Override
+    public E remove(int index) {
+        E removed = get(index);
+        int nMoved = this.size - index - 1;
+        System.arraycopy(this.keys, index + 1, this.keys, index, nMoved);
+        System.arraycopy(this.items, index + 1, this.items, index, nMoved);
+        this.size--;
+        this.items[this.size] = null;
+        this.modCount++;
+        // removal from the sorted section keeps the remaining sorted items in order
+        if (index < this.nSorted) this.nSorted--;
+        this.aggregates.removed(removed);
+        return removed;
+    }
+
+    @Override
+    public void clear() {
+        Arrays.fill(this.items, 0, this.size, null);
+        this.size = 0;
+        this.nSorted = 0;
+        this.modCount++;
+        this.aggregates.rebuild();
+    }
+
+    private void ensureCapacity(int minCapacity) {
+        if (minCapacity > this.keys.length) {
+            int newCapacity = Math.max(minCapacity, this.keys.length + (this.keys.length >> 1));
+            this.keys = Arrays.copyOf(this.keys, newCapacity);
+            this.items = Arrays.copyOf(this.items, newCapacity);
+        }
+    }
+
+    /**
+     * sorts all items by ascending key, using a stable merge sort on the primitive keys
+     * which carries the items along
+     */
+    @Override
+    public void sort() {
+        if (this.nSorted < this.size) {
+            long[] keyBuffer = new long[this.size];
+            Object[] itemBuffer = new Object[this.size];
+            mergeSort(this.keys, this.items, keyBuffer, itemBuffer, 0, this.size);
+            this.nSorted = this.size;
+            this.modCount++;
+        }
+    }
+
+    // sorts keys[from..to-1] together with items[from..to-1]
+    private static void mergeSort(long[] keys, Object[] items, long[] keyBuffer, Object[] itemBuffer, int from, int to) {
+        if (to - from <= 16) {
+            // insertion sort for small sections
+            for (int i = from + 1; i < to; i++) {
+                long key = keys[i];
+                Object item = items[i];
+                int j = i - 1;
+                while (j >= from && keys[j] > key) {
+                    keys[j + 1] = keys[j];
+                    items[j + 1] = items[j];
+                    j--;
+                }
+                keys[j + 1] = key;
+                items[j + 1] = item;
+            }
+            return;
+        }
+        int mid = (from + to) >>> 1;
+        mergeSort(keys, items, keyBuffer, itemBuffer, from, mid);
+        mergeSort(keys, items, keyBuffer, itemBuffer, mid, to);
+        if (keys[mid - 1] <= keys[mid]) return;   // both halves are already in order
+
+        System.arraycopy(keys, from, keyBuffer, from, to - from);
+        System.arraycopy(items, from, itemBuffer, from, to - from);
+        int left = from;
+        int right = mid;
+        for (int i = from; i < to; i++) {
+            if (right >= to || (left < mid && keyBuffer[left] <= keyBuffer[right])) {
+                keys[i] = keyBuffer[left];
+                items[i] = itemBuffer[left++];
+            } else {
+                keys[i] = keyBuffer[right];
+                items[i] = itemBuffer[right++];
+            }
+        }
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public int indexOf(Object item) {
+        if (item != null) {
+            return indexOfKey(this.keyExtractor.applyAsLong((E) item));
+        } else {
+            return -1;
+        }
+    }
+
+    @Override
+    public int indexOfByBinarySearch(E searchItem) {
+        if (searchItem != null) {
+            return indexOfKey(this.keyExtractor.applyAsLong(searchItem));
+        } else {
+            return -1;
+        }
+    }
+
+    /**
+     * finds the position of an item with the given key by an interpolation search on the primitive keys
+     * in the sorted section of the list, like OrderedArrayList.indexOfByInterpolationSearch.
+     * Interpolation probes that fail to halve the remaining section are followed by a bisection probe,
+     * such that skewed keys never take more than O(log n) probes.
+     * If the key is not found in the sorted section, the unsorted section of the list shall be searched by linear search.
+     * @param key   the key to be searched
+     * @return      the position index of the found item in the list, or -1 if no item has the given key.
+     */
+    public int indexOfKey(long key) {
+        int low = 0;
+        int high = this.nSorted - 1;
+        boolean bisect = false;
+        while (low <= high) {
+            long lowKey = this.keys[low];
+            long highKey = this.keys[high];
+            if (key < lowKey || key > highKey) break;
+
+            int mid;
+            if (bisect || highKey == lowKey) {
+                mid = (low + high) >>> 1;
+            } else {
+                // use doubles to avoid overflow on the difference of large keys
+                mid = low + (int) (((double) key - lowKey) / ((double) highKey - lowKey) * (high - low));
+            }
+            this.probeCount++;
+            long midKey = this.keys[mid];
+            int sectionSize = high - low;
+            if (midKey < key) {
+                low = mid + 1;
+            } else if (midKey > key) {
+                high = mid - 1;
+            } else {
+                return mid;
+            }
+            bisect = !bisect && (high - low) > sectionSize / 2;
+        }
+        // if no match was found, attempt a linear search of the key in the section nSorted <= index < size
+        for (int i = this.nSorted; i < this.size; i++) {
+            if (this.keys[i] == key) return i;
+        }
+        return -1;
+    }
+
+    @Override
+    public int lowerBound(E searchItem) {
+        return lowerBound(this.keyExtractor.applyAsLong(searchItem));
+    }
+
+    @Override
+    public int upperBound(E searchItem) {
+        return upperBound(this.keyExtractor.applyAsLong(searchItem));
+    }
+
+    /**
+     * finds the first position in the sorted section of the list with a key that is not less than the given key
+     * @param key
+     * @return  the position 0 <= index <= nSorted of the lower bound
+     */
+    public int lowerBound(long key) {
+        int low = 0;
+        int high = this.nSorted;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (this.keys[mid] < key) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    /**
+     * finds the first position in the sorted section of the list with a key that is greater than the given key
+     * @param key
+     * @return  the position 0 <= index <= nSorted of the upper bound
+     */
+    public int upperBound(long key) {
+        int low = 0;
+        int high = this.nSorted;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (this.keys[mid] <= key) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    /**
+     * provides a read-only view on all items in the sorted section of the list with fromKey <= key < toKey,
+     * found in O(log n) time without copying any items
+     * @param fromKey   the inclusive lower bound
+     * @param toKey     the exclusive upper bound
+     * @return          the view on the items in the range
+     */
+    public List<E> rangeView(long fromKey, long toKey) {
+        int from = this.lowerBound(fromKey);
+        int to = Math.max(from, this.lowerBound(toKey));
+        return Collections.unmodifiableList(this.subList(from, to));
+    }
+
+    /**
+     * calculates the sum of the values of mapper over the items with fromKey <= key < toKey
+     * only the items within the range are visited
+     */
+    public double aggregateRange(long fromKey, long toKey, ToDoubleFunction<E> mapper) {
+        double sum = 0;
+        int to = this.lowerBound(toKey);
+        for (int i = this.lowerBound(fromKey); i < to; i++) {
+            sum = sum + mapper.applyAsDouble(get(i));
+        }
+        return sum;
+    }
+
+    /**
+     * finds a match of newItem in the list and applies the merger operator with the newItem to that match
+     * i.e. the found match is replaced by the outcome of the merge between the match and the newItem
+     * If no match is found in the list, the newItem is added to the list.
+     * @param newItem
+     * @param merger    a function that takes two items and returns an item that contains the merged content of
+     *                  the two items according to some merging rule.
+     * @return  whether a new item was added to the list or not
+     */
+    @Override
+    public boolean merge(E newItem, BinaryOperator<E> merger) {
+        if (newItem == null) return false;
+        int matchedItemIndex = this.indexOfKey(this.keyExtractor.applyAsLong(newItem));
+        if (matchedItemIndex < 0) {
+            this.add(newItem);
+            return true;
+        } else {
+            // replace the matched item in the list with the merger of the matched item and the newItem
+            E matchedItem = get(matchedItemIndex);
+            // the merger may update the matched item in place, so account for its removal before merging
+            this.aggregates.removed(matchedItem);
+            E merged = merger.apply(newItem, matchedItem);
+            replace(matchedItemIndex, merged);
+            this.aggregates.added(merged);
+            return false;
+        }
+    }
+}
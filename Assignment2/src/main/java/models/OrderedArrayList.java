@@ -3,7 +3,11 @@ package models;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Comparator;
+import java.util.function.UnaryOperator;
 import java.util.function.BinaryOperator;
+import java.util.function.Predicate;
+import java.util.function.ToDoubleFunction;
+import java.util.function.ToLongFunction;
 
 public class OrderedArrayList<E>
         extends ArrayList<E>
@@ -11,13 +15,16 @@ public class OrderedArrayList<E>
 
     protected Comparator<? super E> ordening;   // the comparator that has been used with the latest sort
     protected int nSorted;                      // the number of items that have been ordered by barcode in the list
+    protected ToLongFunction<? super E> keyExtractor;   // numeric key in agreement with ordening, enables interpolation search
+    protected long probeCount;                  // the number of probes into the sorted section by all searches so far
+    private final AggregateRegistry<E> aggregates = new AggregateRegistry<>(this);
     // representation-invariant
     //      all items at index positions 0 <= index < nSorted have been ordered by the given ordening comparator
     //      other items at index position nSorted <= index < size() can be in any order amongst themselves
     //              and also relative to the sorted section
 
     public OrderedArrayList() {
-        this(null);
+        this((Comparator<? super E>) null);
     }
 
     public OrderedArrayList(Comparator<? super E> ordening ) {
@@ -26,19 +33,113 @@ public class OrderedArrayList<E>
         this.nSorted = 0;
     }
 
+    /**
+     * creates an ordered list which orders its items by ascending numeric key
+     * and searches its sorted section by interpolation search on that key
+     * @param keyExtractor  extracts the numeric key of an item
+     */
+    public OrderedArrayList(ToLongFunction<? super E> keyExtractor) {
+        this(Comparator.comparingLong(keyExtractor));
+        this.keyExtractor = keyExtractor;
+    }
+
     public Comparator<? super E> getOrdening() {
         return this.ordening;
     }
 
+    @Override
+    public Aggregate<E> registerAggregate(String name, ToDoubleFunction<E> mapper) {
+        return this.aggregates.register(name, mapper);
+    }
+
+    @Override
+    public Aggregate<E> getAggregate(String name) {
+        return this.aggregates.get(name);
+    }
+
     @Override
     public void clear() {
         super.clear();
         this.nSorted = 0;
+        this.aggregates.rebuild();
+    }
+
+    @Override
+    public boolean add(E item) {
+        super.add(item);
+        this.aggregates.added(item);
+        return true;
+    }
+
+    @Override
+    public boolean addAll(Collection<? extends E> items) {
+        boolean changed = super.addAll(items);
+        this.aggregates.addedAll(items);
+        return changed;
+    }
+
+    @Override
+    public boolean addAll(int index, Collection<? extends E> items) {
+        boolean changed = super.addAll(index, items);
+        if (changed && index < this.nSorted) this.nSorted = index;
+        this.aggregates.addedAll(items);
+        return changed;
+    }
+
+    @Override
+    public E set(int index, E item) {
+        E previous = super.set(index, item);
+        this.aggregates.removed(previous);
+        this.aggregates.added(item);
+        return previous;
+    }
+
+    // the bulk operations below bypass the single item operations, so the aggregates are recalculated afterwards
+
+    @Override
+    public boolean removeIf(Predicate<? super E> filter) {
+        boolean changed = super.removeIf(filter);
+        if (changed) {
+            this.nSorted = 0;
+            this.aggregates.rebuild();
+        }
+        return changed;
+    }
+
+    @Override
+    public boolean removeAll(Collection<?> items) {
+        boolean changed = super.removeAll(items);
+        if (changed) {
+            this.nSorted = 0;
+            this.aggregates.rebuild();
+        }
+        return changed;
+    }
+
+    @Override
+    public boolean retainAll(Collection<?> items) {
+        boolean changed = super.retainAll(items);
+        if (changed) {
+            this.nSorted = 0;
+            this.aggregates.rebuild();
+        }
+        return changed;
+    }
+
+    @Override
+    public void replaceAll(UnaryOperator<E> operator) {
+        super.replaceAll(operator);
+        this.nSorted = 0;
+        this.aggregates.rebuild();
     }
 
     @Override
     public void sort(Comparator<? super E> c) {
         super.sort(c);
+        if (c != this.ordening) {
+            // the numeric keys need not agree with another ordening, so searches fall back on the binary search
+            this.keyExtractor = null;
+        }
         this.ordening = c;
         this.nSorted = this.size();
     }
@@ -52,18 +153,33 @@ public class OrderedArrayList<E>
         return nSorted;
     }
 
+    /**
+     * @return  the number of probes into the sorted section that have been made by
+     *          the iterative binary search and the interpolation search since the last reset
+     */
+    public long getProbeCount() {
+        return probeCount;
+    }
+
+    public void resetProbeCount() {
+        this.probeCount = 0;
+    }
+
     @Override
     public void add(int index, E item) {
         if(index < 0 || index > this.size()) return; // leave method if it is a wrong index.
         super.add(index, item);
-        this.nSorted = index;
+        this.nSorted = Math.min(this.nSorted, index);
+        this.aggregates.added(item);
     }
 
     @Override
     public E remove(int index) {
         if ((index + 1) > nSorted){
         } else if ((index + 1) <= nSorted) nSorted = index;
-        return super.remove(index);
+        E removed = super.remove(index);
+        this.aggregates.removed(removed);
+        return removed;
     }
 
     @Override
@@ -71,7 +187,10 @@ public class OrderedArrayList<E>
         int index = (this.indexOf(removeThisObject));
         if ((index + 1) > nSorted){
         } else if ((index + 1) <= nSorted) nSorted = index;
-        return super.remove(removeThisObject);
+        int removeIndex = super.indexOf(removeThisObject);
+        if (removeIndex < 0) return false;
+        this.aggregates.removed(super.remove(removeIndex));
+        return true;
     }
 
 
@@ -85,7 +204,10 @@ public class OrderedArrayList<E>
     @Override
     public int indexOf(Object item) {
         if (item != null) {
-            return indexOfByIterativeBinarySearch((E)item);
+            @SuppressWarnings("unchecked")
+            E searchItem = (E) item;
+            if (this.keyExtractor != null) return indexOfByInterpolationSearch(searchItem);
+            return indexOfByIterativeBinarySearch(searchItem);
 //            return indexOfByRecursiveBinarySearch((E)item, 0,0);
         } else {
             return -1;
@@ -118,18 +240,15 @@ public class OrderedArrayList<E>
         int high = this.nSorted - 1;
         while (low <= high){
             int mid = low + (high - low) / 2;
-//            //check if searchItem is present at mid.
-//            if (this.get(mid) == searchItem) return mid;
-            if (this.ordening.compare(this.get(mid), searchItem) == 0){
+            this.probeCount++;
+            int comparison = this.ordening.compare(this.get(mid), searchItem);
+            if (comparison == 0){
                 return mid;
             }
             //smaller
-            if (this.ordening.compare(this.get(mid), searchItem) == 1){
-//                System.out.println(1);
+            if (comparison > 0){
                 high = mid-1;
-            }
-            if (this.ordening.compare(this.get(mid), searchItem) == -1){
-//                System.out.println(-1);
+            } else {
                 low = mid+1;
             }
         }
@@ -139,6 +258,86 @@ public class OrderedArrayList<E>
         }
         return -1;
     }
+    @Override
+    public int lowerBound(E searchItem) {
+        int low = 0;
+        int high = this.nSorted;
+        while (low < high) {
+            int mid = low + (high - low) / 2;
+            if (this.ordening.compare(this.get(mid), searchItem) < 0) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    @Override
+    public int upperBound(E searchItem) {
+        int low = 0;
+        int high = this.nSorted;
+        while (low < high) {
+            int mid = low + (high - low) / 2;
+            if (this.ordening.compare(this.get(mid), searchItem) <= 0) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    /**
+     * finds the position of the searchItem by an interpolation search on the numeric keys in the
+     * sorted section of the arrayList. Every probe estimates the position of the key from the keys at the
+     * bounds of the remaining section, which takes O(log log n) probes on uniformly distributed keys.
+     * Interpolation probes that fail to halve the remaining section are followed by a bisection probe,
+     * such that skewed key distributions never take more than O(log n) probes.
+     * If the item is not found in the sorted section, the unsorted section of the arrayList shall be searched by linear search.
+     * Lists without a keyExtractor fall back on the iterative binary search.
+     * @param searchItem    the item to be searched on the basis of its numeric key
+     * @return              the position index of the found item in the arrayList, or -1 if no item matches the search item.
+     */
+    public int indexOfByInterpolationSearch(E searchItem) {
+        if (this.keyExtractor == null) return indexOfByIterativeBinarySearch(searchItem);
+
+        long key = this.keyExtractor.applyAsLong(searchItem);
+        int low = 0;
+        int high = this.nSorted - 1;
+        boolean bisect = false;
+        while (low <= high) {
+            long lowKey = this.keyExtractor.applyAsLong(this.get(low));
+            long highKey = this.keyExtractor.applyAsLong(this.get(high));
+            if (key < lowKey || key > highKey) break;
+
+            int mid;
+            if (bisect || highKey == lowKey) {
+                mid = low + (high - low) / 2;
+            } else {
+                // estimate the position by linear interpolation; use doubles to avoid overflow on 13-digit keys
+                mid = low + (int) (((double) key - lowKey) / ((double) highKey - lowKey) * (high - low));
+            }
+            this.probeCount++;
+            long midKey = this.keyExtractor.applyAsLong(this.get(mid));
+            int sectionSize = high - low;
+            if (midKey == key) {
+                return mid;
+            } else if (midKey < key) {
+                low = mid + 1;
+            } else {
+                high = mid - 1;
+            }
+            // alternate with a bisection probe whenever interpolation did not halve the section
+            bisect = !bisect && (high - low) > sectionSize / 2;
+        }
+        // if no match was found, attempt a linear search of the key in the section nSorted <= index < size()
+        for (int i = this.nSorted; i < this.size(); i++) {
+            if (this.keyExtractor.applyAsLong(this.get(i)) == key) return i;
+        }
+        return -1;
+    }
+
     /**
      * finds the position of the searchItem by a recursive binary search algorithm in the
      * sorted section of the arrayList, using the this.ordening comparator for comparison and equality test.
@@ -189,7 +388,9 @@ public class OrderedArrayList<E>
     @Override
     public boolean merge(E newItem, BinaryOperator<E> merger) {
         if (newItem == null) return false;
-        int matchedItemIndex = this.indexOfByRecursiveBinarySearch(newItem, 0, nSorted);
+        int matchedItemIndex = this.keyExtractor != null ?
+                this.indexOfByInterpolationSearch(newItem) :
+                this.indexOfByRecursiveBinarySearch(newItem, 0, nSorted - 1);
 //        System.out.println(newItem);
         if (matchedItemIndex < 0) {
             this.add(newItem);
@@ -198,8 +399,11 @@ public class OrderedArrayList<E>
             // retrieve the matched item and
             //  replace the matched item in the list with the merger of the matched item and the newItem
             E matchedItem = get(matchedItemIndex);
+            // the merger may update the matched item in place, so account for its removal before merging
+            this.aggregates.removed(matchedItem);
             E merged = merger.apply(newItem, matchedItem);
-            set(matchedItemIndex, merged);
+            super.set(matchedItemIndex, merged);
+            this.aggregates.added(merged);
             return false;
         }
     }
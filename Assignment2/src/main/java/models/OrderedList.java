@@ -1,9 +1,15 @@
 package models;
 
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
 import java.util.Comparator;
 import java.util.List;
+import java.util.PriorityQueue;
 import java.util.function.BinaryOperator;
 import java.util.function.ToDoubleFunction;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
 
 public interface OrderedList<E> extends List<E> {
     void sort();
@@ -11,6 +17,70 @@ public interface OrderedList<E> extends List<E> {
     boolean merge(E item, BinaryOperator<E> merger);
     Comparator<? super E> getOrdening();
 
+    /**
+     * finds the first position in the sorted section of the list of an item that does not precede searchItem
+     * @param searchItem    the bound, compared by the ordening of the list
+     * @return              the position 0 <= index <= nSorted of the lower bound
+     */
+    int lowerBound(E searchItem);
+
+    /**
+     * finds the first position in the sorted section of the list of an item that succeeds searchItem
+     * @param searchItem    the bound, compared by the ordening of the list
+     * @return              the position 0 <= index <= nSorted of the upper bound
+     */
+    int upperBound(E searchItem);
+
+    /**
+     * provides a read-only view on all items in the sorted section of the list from fromItem (inclusive) to toItem (exclusive)
+     * the view is found in O(log n) time, without copying any items; items in the unsorted section are not included,
+     * so the list shall be sorted first to include all items.
+     * the view is backed by the list, and is invalidated by any structural change to the list
+     *
+     * @param fromItem  the inclusive lower bound, compared by the ordening of the list
+     * @param toItem    the exclusive upper bound, compared by the ordening of the list
+     * @return          the view on the items in the range
+     */
+    default List<E> rangeView(E fromItem, E toItem) {
+        int from = this.lowerBound(fromItem);
+        int to = Math.max(from, this.lowerBound(toItem));
+        return Collections.unmodifiableList(this.subList(from, to));
+    }
+
+    /**
+     * calculates the sum of the values of mapper over the items in the range view from fromItem to toItem
+     * only the items within the range are visited
+     */
+    default double aggregateRange(E fromItem, E toItem, ToDoubleFunction<E> mapper) {
+        double sum = 0;
+        for (E item : this.rangeView(fromItem, toItem)) {
+            sum = sum + mapper.applyAsDouble(item);
+        }
+        return sum;
+    }
+
+    /**
+     * registers a named aggregate of the values of mapper over all items in the list
+     * the sum, count, min and max of the aggregate are maintained by every add, remove, set and merge on the list,
+     * such that they can be read without a scan of the list
+     *
+     * @param name      the name of the aggregate, replacing any earlier aggregate by that name
+     * @param mapper    maps an item onto the value to be aggregated
+     * @return          the new aggregate, initialised over the current items in the list
+     */
+    Aggregate<E> registerAggregate(String name, ToDoubleFunction<E> mapper);
+
+    /**
+     * @param name
+     * @return  the aggregate that has been registered by that name, or null if there is none
+     */
+    Aggregate<E> getAggregate(String name);
+
+    /**
+     * calculates the sum of the values of mapper over all items in the list, by a full scan of the list
+     * @param mapper
+     * @return
+     */
     default double aggregate(ToDoubleFunction<E> mapper) {
         double sum = 0;
 
@@ -19,4 +89,75 @@ public interface OrderedList<E> extends List<E> {
         }
         return sum;
     }
+
+    /**
+     * finds the top n items according to the ranker, without disturbing the ordening of the list
+     * streams once over all items while keeping the best n candidates in a bounded heap,
+     * which takes O(N log n) time and O(n) additional memory
+     * items that rank equal keep their relative order in the list
+     *
+     * @param n         the number of top items to be found
+     * @param ranker    the comparator that ranks the best item first
+     * @return          a new list with at most n items, sorted by rank
+     */
+    default List<E> tops(int n, Comparator<? super E> ranker) {
+        return sortedTops(topsHeap(n, ranker, 0, this.size()), n, ranker);
+    }
+
+    /**
+     * finds the top n items according to the ranker like tops(n, ranker),
+     * with every worker of the common fork-join pool streaming over its own slice of the list into its own bounded heap
+     * the heaps of all slices are merged into the final ranking
+     * the list must not be modified during the search
+     *
+     * @param n         the number of top items to be found
+     * @param ranker    the comparator that ranks the best item first
+     * @return          a new list with at most n items, sorted by rank
+     */
+    default List<E> topsParallel(int n, Comparator<? super E> ranker) {
+        int size = this.size();
+        int nSlices = Math.max(1, Math.min(Runtime.getRuntime().availableProcessors(), size / Math.max(n, 1024)));
+        List<Integer> candidates = IntStream.range(0, nSlices).parallel()
+                .mapToObj(slice -> topsHeap(n, ranker, (int) ((long) size * slice / nSlices), (int) ((long) size * (slice + 1) / nSlices)))
+                .flatMap(PriorityQueue::stream)
+                .collect(Collectors.toList());
+        return sortedTops(candidates, n, ranker);
+    }
+
+    /**
+     * collects the positions of the best n items within from <= index < to into a bounded heap
+     * the root of the heap holds the position of the worst candidate, which is replaced by any better item
+     */
+    private PriorityQueue<Integer> topsHeap(int n, Comparator<? super E> ranker, int from, int to) {
+        Comparator<Integer> byRank = rankOfPositions(ranker);
+        PriorityQueue<Integer> heap = new PriorityQueue<>(Math.max(1, n + 1), byRank.reversed());
+        if (n <= 0) return heap;
+        for (int i = from; i < to; i++) {
+            if (heap.size() < n) {
+                heap.add(i);
+            } else if (byRank.compare(i, heap.peek()) < 0) {
+                heap.poll();
+                heap.add(i);
+            }
+        }
+        return heap;
+    }
+
+    private List<E> sortedTops(Collection<Integer> candidates, int n, Comparator<? super E> ranker) {
+        List<Integer> positions = new ArrayList<>(candidates);
+        positions.sort(rankOfPositions(ranker));
+        List<E> tops = new ArrayList<>(Math.max(0, Math.min(n, positions.size())));
+        for (int rank = 0; rank < n && rank < positions.size(); rank++) {
+            tops.add(this.get(positions.get(rank)));
+        }
+        return tops;
+    }
+
+    // ranks positions by the ranker on their items, and by position for items that rank equal
+    private Comparator<Integer> rankOfPositions(Comparator<? super E> ranker) {
+        return (i, j) -> {
+            int comparison = ranker.compare(this.get(i), this.get(j));
+            return comparison != 0 ? comparison : Integer.compare(i, j);
+        };
+    }
 }
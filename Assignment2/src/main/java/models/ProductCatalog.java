@@ -0,0 +1,74 @@
+package models;
+
+import java.util.Collection;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * A versioned reference list of all products, which is replaced as a whole by copy-on-write.
+ * A new catalog is loaded off to the side and published with one atomic reference swap,
+ * such that readers never block and never see a partially loaded catalog.
+ * A published list of products shall never be modified; readers that need a consistent view
+ * across several lookups shall retrieve the list once and keep using that version.
+ */
+public class ProductCatalog {
+
+    /**
+     * an immutable version of the catalog
+     */
+    private static class Version {
+        final long number;
+        final OrderedList<Product> products;
+
+        Version(long number, OrderedList<Product> products) {
+            this.number = number;
+            this.products = products;
+        }
+    }
+
+    private final AtomicReference<Version> current =
+            new AtomicReference<>(new Version(0, new LongKeyedOrderedList<>(Product::getBarcode)));
+
+    /**
+     * @return  the currently published products, ordered and searchable by barcode
+     */
+    public OrderedList<Product> getProducts() {
+        return this.current.get().products;
+    }
+
+    /**
+     * @return  the version number of the currently published products, which increases with every publication
+     */
+    public long getVersion() {
+        return this.current.get().number;
+    }
+
+    /**
+     * loads a new catalog from a products text file with one product per line, and publishes it
+     *
+     * @param filePath
+     * @return the newly published products
+     */
+    public OrderedList<Product> reload(String filePath) {
+        OrderedList<Product> products = new LongKeyedOrderedList<>(Product::getBarcode);
+        PurchaseTracker.importItemsFromFile(products, filePath, Product::fromLine);
+        return this.publish(products);
+    }
+
+    /**
+     * publishes a copy of the given products as the new version of the catalog
+     *
+     * @param products
+     * @return the newly published products
+     */
+    public OrderedList<Product> publish(Collection<Product> products) {
+        OrderedList<Product> newProducts = new LongKeyedOrderedList<>(Product::getBarcode, products.size());
+        newProducts.addAll(products);
+        // sort the products for efficient later retrieval, before any reader can see them
+        newProducts.sort();
+        Version previous;
+        do {
+            previous = this.current.get();
+        } while (!this.current.compareAndSet(previous, new Version(previous.number + 1, newProducts)));
+        return newProducts;
+    }
+}
@@ -22,27 +22,63 @@ public class Purchase {
      */
     public static Purchase fromLine(String textLine, List<Product> products) {
         Purchase newPurchase = null;
-//
-//        //TODO convert the information in the textLine to a new Purchase instance
-//        // use the products.indexOf to find the product that is associated with the barcode of the purchase
-
-        List<Product> orderedProducts = new ArrayList<>(products);
-        orderedProducts.sort(new Product.ComparatorByBarcode());
-
-        Iterator<Product> productIterator2 = orderedProducts.iterator();
-        String barcode1 = textLine.split(",")[0];
-        String amount = textLine.split(",")[1].trim();
-        long barcode = Long.parseLong(barcode1);
-        while (productIterator2.hasNext()){
-            Product thisProduct = productIterator2.next();
-            if (thisProduct.getBarcode() == barcode){
-                newPurchase = new Purchase(thisProduct, Integer.parseInt(amount));
-                break;
-            }
-        }
+
+        String[] fields = textLine.split(",");
+        long barcode = Long.parseLong(fields[0].trim());
+        int amount = Integer.parseInt(fields[1].trim());
+
+        newPurchase = fromBarcode(barcode, amount, products);
         return newPurchase;
     }
 
+    /**
+     * creates a purchase summary of the product with the given barcode
+     *
+     * @param barcode
+     * @param count
+     * @param products a list of products ordered and searchable by barcode
+     * @return a new Purchase instance, or null if the barcode is not found in products
+     */
+    public static Purchase fromBarcode(long barcode, int count, List<Product> products) {
+        Product product = findProduct(barcode, products);
+        return product != null ? new Purchase(product, count) : null;
+    }
+
+    /**
+     * finds the product with the given barcode
+     * an ordered list of products is searched on barcode by its binary search,
+     * any other list of products falls back on Product.equals, which also matches on barcode
+     *
+     * @param barcode
+     * @param products
+     * @return the product with the given barcode, or null if no such product exists
+     */
+    static Product findProduct(long barcode, List<Product> products) {
+        if (products instanceof LongKeyedOrderedList) {
+            // search the primitive keys directly, without creating a search item
+            LongKeyedOrderedList<Product> orderedProducts = (LongKeyedOrderedList<Product>) products;
+            int index = orderedProducts.indexOfKey(barcode);
+            return index >= 0 ? orderedProducts.get(index) : null;
+        }
+        int index = products.indexOf(new Product(barcode));
+        return index >= 0 ? products.get(index) : null;
+    }
+
+    /**
+     * narrows an accumulated count to the int count of a purchase
+     *
+     * @param barcode   the barcode of the count, to report an overflow
+     * @param count
+     * @return the count as an int
+     * @throws ArithmeticException if the count exceeds the int range
+     */
+    static int toCount(long barcode, long count) {
+        if ((int) count != count) {
+            throw new ArithmeticException("The count " + count + " of barcode " + barcode + " exceeds the int range of a purchase");
+        }
+        return (int) count;
+    }
+
     /**
      * add a delta amount to the count of the purchase summary instance
      *
@@ -0,0 +1,258 @@
+package models;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A dimensional aggregation of purchase counts per (product, date, city, store), as found in the vault layout
+ * purchases/&lt;date&gt;/&lt;city&gt;/&lt;store&gt;.txt
+ * The dimension values are dictionary encoded and the cells are kept in compact primitive arrays.
+ * Every dimension holds less than MAX_DIMENSION_SIZE values, such that a cell is identified by a single long key.
+ * A store is identified by its city and its name, such that same-named branches in different cities stay apart;
+ * the store dimension is keyed by storeKey(city, store), e.g. Rotterdam/lijnbaan.
+ * Rollups per product and date, per product and store and per date and store are precomputed on first use
+ * after any change, such that queries are answered from pre-aggregated cells.
+ * The rollups are sparse, they only hold the combinations that occur in the cells.
+ */
+public class PurchaseCube {
+    public static final String NO_CITY = "-";       // the city of branches that are not located in a city folder, like the webshop
+    public static final int MAX_DIMENSION_SIZE = 1 << 21;   // the number of values of a dimension that fit in a cell key
+
+    // dimension dictionaries
+    private final List<Product> products = new ArrayList<>();
+    private final Map<Long, Integer> productIndex = new HashMap<>();
+    private final List<String> dates = new ArrayList<>();
+    private final Map<String, Integer> dateIndex = new HashMap<>();
+    private final List<String> cities = new ArrayList<>();
+    private final Map<String, Integer> cityIndex = new HashMap<>();
+    private final List<String> stores = new ArrayList<>();
+    private final Map<String, Integer> storeIndex = new HashMap<>();   // by storeKey(city, store)
+    private int[] storeCity = new int[8];              // the city of each store
+
+    // the cells, one per (product, date, store) combination that has been added
+    private int[] cellProduct = new int[64];
+    private int[] cellDate = new int[64];
+    private int[] cellStore = new int[64];
+    private long[] cellCount = new long[64];
+    private int nCells = 0;
+    private final Map<Long, Integer> cellIndex = new HashMap<>();
+
+    // rollups, recalculated from the cells when stale
+    private boolean rollupsStale = true;
+    private List<Map<Integer, Long>> productCountsByDate;    // per date: the count per product
+    private List<Map<Integer, Long>> productCountsByStore;   // per store: the count per product
+    private List<Map<Integer, Double>> storeRevenueByDate;   // per date: the revenue per store
+
+    /**
+     * adds the count of a purchase at a store on a date to the cube
+     * @param product
+     * @param date      the date folder name, e.g. 20211002
+     * @param city      the city folder name, or NO_CITY
+     * @param store     the store file name without extension, e.g. lijnbaan
+     * @param count
+     * @throws IllegalStateException if a dimension would exceed MAX_DIMENSION_SIZE values
+     */
+    public void add(Product product, String date, String city, String store, int count) {
+        int p = productIndex.computeIfAbsent(product.getBarcode(), b -> {
+            checkDimensionSize(products, "products");
+            products.add(product);
+            return products.size() - 1;
+        });
+        int d = indexOf(date, dates, dateIndex, "dates");
+        int s = storeIndex.computeIfAbsent(storeKey(city, store), key -> {
+            checkDimensionSize(stores, "stores");
+            stores.add(key);
+            if (stores.size() > storeCity.length) storeCity = Arrays.copyOf(storeCity, 2 * storeCity.length);
+            storeCity[stores.size() - 1] = indexOf(city, cities, cityIndex, "cities");
+            return stores.size() - 1;
+        });
+
+        // products, dates and stores each have less than MAX_DIMENSION_SIZE = 2^21 values
+        long cellKey = ((long) p << 42) | ((long) d << 21) | s;
+        Integer cell = cellIndex.get(cellKey);
+        if (cell == null) {
+            cell = newCell(p, d, s);
+            cellIndex.put(cellKey, cell);
+        }
+        cellCount[cell] += count;
+        rollupsStale = true;
+    }
+
+    /**
+     * @param city      the city folder name, or NO_CITY
+     * @param store     the store file name without extension
+     * @return          the key of the store in the store dimension, e.g. Rotterdam/lijnbaan
+     */
+    public static String storeKey(String city, String store) {
+        return city + "/" + store;
+    }
+
+    private static int indexOf(String value, List<String> values, Map<String, Integer> index, String dimension) {
+        return index.computeIfAbsent(value, v -> {
+            checkDimensionSize(values, dimension);
+            values.add(v);
+            return values.size() - 1;
+        });
+    }
+
+    private static void checkDimensionSize(List<?> values, String dimension) {
+        if (values.size() >= MAX_DIMENSION_SIZE) {
+            throw new IllegalStateException("A purchase cube holds at most " + MAX_DIMENSION_SIZE + " " + dimension);
+        }
+    }
+
+    private int newCell(int p, int d, int s) {
+        if (nCells == cellCount.length) {
+            int newCapacity = 2 * nCells;
+            cellProduct = Arrays.copyOf(cellProduct, newCapacity);
+            cellDate = Arrays.copyOf(cellDate, newCapacity);
+            cellStore = Arrays.copyOf(cellStore, newCapacity);
+            cellCount = Arrays.copyOf(cellCount, newCapacity);
+        }
+        cellProduct[nCells] = p;
+        cellDate[nCells] = d;
+        cellStore[nCells] = s;
+        return nCells++;
+    }
+
+    /**
+     * recalculates all rollups from the cells in a single pass
+     */
+    private void refreshRollups() {
+        if (!rollupsStale) return;
+        productCountsByDate = newRollup(dates.size());
+        productCountsByStore = newRollup(stores.size());
+        storeRevenueByDate = newRollup(dates.size());
+        for (int c = 0; c < nCells; c++) {
+            int p = cellProduct[c];
+            long count = cellCount[c];
+            productCountsByDate.get(cellDate[c]).merge(p, count, Long::sum);
+            productCountsByStore.get(cellStore[c]).merge(p, count, Long::sum);
+            storeRevenueByDate.get(cellDate[c]).merge(cellStore[c], count * products.get(p).getPrice(), Double::sum);
+        }
+        rollupsStale = false;
+    }
+
+    private static <V> List<Map<Integer, V>> newRollup(int nRows) {
+        List<Map<Integer, V>> rollup = new ArrayList<>(nRows);
+        for (int row = 0; row < nRows; row++) {
+            rollup.add(new HashMap<>());
+        }
+        return rollup;
+    }
+
+    /**
+     * calculates the revenue per city on the given date
+     * @param date  the date folder name, or null for all dates
+     * @return      the revenue of every city that has stores, in order of first appearance
+     */
+    public Map<String, Double> revenueByCity(String date) {
+        refreshRollups();
+        double[] revenue = new double[cities.size()];
+        for (int d = 0; d < dates.size(); d++) {
+            if (date != null && !date.equals(dates.get(d))) continue;
+            for (Map.Entry<Integer, Double> storeRevenue : storeRevenueByDate.get(d).entrySet()) {
+                revenue[storeCity[storeRevenue.getKey()]] += storeRevenue.getValue();
+            }
+        }
+        Map<String, Double> revenueByCity = new LinkedHashMap<>();
+        for (int c = 0; c < cities.size(); c++) {
+            revenueByCity.put(cities.get(c), revenue[c]);
+        }
+        return revenueByCity;
+    }
+
+    /**
+     * calculates the revenue per store on the given date
+     * @param date  the date folder name, or null for all dates
+     * @return      the revenue of every store by its storeKey, in order of first appearance
+     */
+    public Map<String, Double> revenueByStore(String date) {
+        refreshRollups();
+        double[] revenue = new double[stores.size()];
+        for (int d = 0; d < dates.size(); d++) {
+            if (date != null && !date.equals(dates.get(d))) continue;
+            for (Map.Entry<Integer, Double> storeRevenue : storeRevenueByDate.get(d).entrySet()) {
+                revenue[storeRevenue.getKey()] += storeRevenue.getValue();
+            }
+        }
+        Map<String, Double> revenueByStore = new LinkedHashMap<>();
+        for (int s = 0; s < stores.size(); s++) {
+            revenueByStore.put(stores.get(s), revenue[s]);
+        }
+        return revenueByStore;
+    }
+
+    /**
+     * @param city  the city folder name, or NO_CITY
+     * @param store the store file name without extension
+     * @return      the accumulated purchases of all products at the store, ordered by barcode
+     * @throws ArithmeticException if an accumulated count exceeds the int range of a purchase
+     */
+    public OrderedList<Purchase> purchasesAtStore(String city, String store) {
+        refreshRollups();
+        Integer s = storeIndex.get(storeKey(city, store));
+        return purchasesFromRollup(s == null ? Map.of() : productCountsByStore.get(s));
+    }
+
+    /**
+     * @param date  the date folder name
+     * @return      the accumulated purchases of all products across all stores on the date, ordered by barcode
+     * @throws ArithmeticException if an accumulated count exceeds the int range of a purchase
+     */
+    public OrderedList<Purchase> purchasesOnDate(String date) {
+        refreshRollups();
+        Integer d = dateIndex.get(date);
+        return purchasesFromRollup(d == null ? Map.of() : productCountsByDate.get(d));
+    }
+
+    // converts the counts per product of a row of a rollup into purchases, failing like ConcurrentPurchaseCounter on overflow
+    private OrderedList<Purchase> purchasesFromRollup(Map<Integer, Long> productCounts) {
+        OrderedList<Purchase> purchases = new LongKeyedOrderedList<>(Purchase::getBarcode, productCounts.size());
+        for (Map.Entry<Integer, Long> productCount : productCounts.entrySet()) {
+            Product product = products.get(productCount.getKey());
+            long count = productCount.getValue();
+            if (count != 0) purchases.add(new Purchase(product, Purchase.toCount(product.getBarcode(), count)));
+        }
+        purchases.sort();
+        return purchases;
+    }
+
+    /**
+     * @param city      the city folder name, or NO_CITY
+     * @param store     the store file name without extension
+     * @param n         the number of top products
+     * @param ranker    the comparator used to rank the purchases at the store
+     * @return          the top n purchases at the store
+     */
+    public List<Purchase> topProductsAtStore(String city, String store, int n, Comparator<Purchase> ranker) {
+        return purchasesAtStore(city, store).tops(n, ranker);
+    }
+
+    public List<String> getDates() {
+        return dates;
+    }
+
+    public List<String> getCities() {
+        return cities;
+    }
+
+    /**
+     * @return the storeKey of every store, in order of first appearance
+     */
+    public List<String> getStores() {
+        return stores;
+    }
+
+    /**
+     * @return the number of distinct (product, date, store) cells
+     */
+    public int getNumCells() {
+        return nCells;
+    }
+}
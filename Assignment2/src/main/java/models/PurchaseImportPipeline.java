@@ -0,0 +1,281 @@
+package models;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.Scanner;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.BinaryOperator;
+import java.util.function.Consumer;
+
+/**
+ * Imports purchase files in three concurrent stages, connected by bounded queues:
+ *      one reader thread reads the files into batches of raw text lines,
+ *      parser threads parse the batches and resolve the barcodes against one version of the catalog,
+ *      the calling thread merges the resolved purchases into the accumulated purchases.
+ * A full queue blocks the stage that feeds it, such that a slow merger throttles the reader and parsers
+ * and the memory in flight is bounded by the queue capacities.
+ * Batches may be merged in any order, which is fine as merging adds up counts.
+ * All listener notifications are made from the calling thread.
+ * If any file cannot be read, the reader moves on to the next file. Once all files have passed,
+ * or as soon as merging or a listener fails, the purchases that have been merged from the incomplete files are retracted again,
+ * such that only the completed files remain merged, and the first failure is rethrown.
+ */
+class PurchaseImportPipeline {
+
+    private static final int DEFAULT_BATCH_SIZE = 1024;
+    private static final int DEFAULT_QUEUE_CAPACITY = 16;
+
+    private final int numParsers;
+    private final int batchSize;
+    private final int queueCapacity;
+
+    // the file that is being imported, with its state before it was read
+    private static class FileInfo {
+        final String path;
+        final long size;
+        final long lastModified;
+        int numBatches = -1;        // the total number of batches of the file, known once its last batch has arrived
+        int numMerged = 0;
+        long numLines = 0;
+        long numFailures = 0;
+        long numUnknownBarcodes = 0;
+        long[] barcodes = new long[16];      // the purchase counts that the file contributes
+        int[] counts = new int[16];
+        int numContributions = 0;
+        boolean failed = false;     // whether the file could not be read completely, or any batch of it could not be parsed
+
+        FileInfo(File file) {
+            this.path = file.getAbsolutePath();
+            this.size = file.length();
+            this.lastModified = file.lastModified();
+        }
+
+        void contribute(long barcode, int count) {
+            if (this.numContributions == this.barcodes.length) {
+                this.barcodes = Arrays.copyOf(this.barcodes, 2 * this.numContributions);
+                this.counts = Arrays.copyOf(this.counts, 2 * this.numContributions);
+            }
+            this.barcodes[this.numContributions] = barcode;
+            this.counts[this.numContributions] = count;
+            this.numContributions++;
+        }
+    }
+
+    // a batch of raw lines from the reader, or of resolved purchases from a parser
+    private static class Batch {
+        final FileInfo file;
+        final boolean last;         // whether this is the last batch of the file
+        final int batchNr;
+        boolean failed = false;
+        List<String> lines;
+        List<Purchase> purchases;
+        int numFailures;
+        int numLines;
+        long parseNanos;
+        long resolveNanos;
+
+        Batch(FileInfo file, int batchNr, boolean last, List<String> lines) {
+            this.file = file;
+            this.batchNr = batchNr;
+            this.last = last;
+            this.lines = lines;
+        }
+    }
+
+    private static final Batch END = new Batch(null, 0, true, null);
+
+    PurchaseImportPipeline() {
+        this(Math.max(1, Runtime.getRuntime().availableProcessors() - 1), DEFAULT_BATCH_SIZE, DEFAULT_QUEUE_CAPACITY);
+    }
+
+    PurchaseImportPipeline(int numParsers, int batchSize, int queueCapacity) {
+        if (numParsers <= 0 || batchSize <= 0 || queueCapacity <= 0) {
+            throw new IllegalArgumentException("A pipeline needs at least one parser, and positive batch sizes and queue capacities");
+        }
+        this.numParsers = numParsers;
+        this.batchSize = batchSize;
+        this.queueCapacity = queueCapacity;
+    }
+
+    /**
+     * imports the purchase files and merges their purchases into the accumulated purchases
+     *
+     * @param files         the files to be imported
+     * @param products      the version of the catalog to resolve the barcodes against
+     * @param purchases     the accumulated purchases, which are only accessed from the calling thread
+     * @param merger        the merger of a new purchase into an accumulated purchase of the same product
+     * @param listeners     the listeners to report the progress to
+     * @param completed     receives the checkpoint entry of every file that has been merged completely,
+     *                      with the purchase counts that the file contributed, also if the import fails later on
+     */
+    void run(List<File> files, List<Product> products, OrderedList<Purchase> purchases,
+             BinaryOperator<Purchase> merger, List<ImportListener> listeners, Consumer<VaultCheckpoint.FileEntry> completed) {
+        BlockingQueue<Batch> rawBatches = new ArrayBlockingQueue<>(this.queueCapacity);
+        BlockingQueue<Batch> parsedBatches = new ArrayBlockingQueue<>(this.queueCapacity);
+        AtomicReference<RuntimeException> failure = new AtomicReference<>();
+        ExecutorService executor = Executors.newFixedThreadPool(1 + this.numParsers, runnable -> {
+            Thread thread = new Thread(runnable, "purchase-import");
+            thread.setDaemon(true);
+            return thread;
+        });
+
+        Set<FileInfo> incompleteFiles = new LinkedHashSet<>();
+        try {
+            executor.execute(() -> this.read(files, rawBatches, failure));
+            for (int p = 0; p < this.numParsers; p++) {
+                executor.execute(() -> this.parse(rawBatches, parsedBatches, products, failure));
+            }
+            this.merge(parsedBatches, purchases, merger, listeners, incompleteFiles, completed);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            failure.compareAndSet(null, new IllegalStateException("The import has been interrupted", e));
+        } catch (RuntimeException e) {
+            // the merger or a listener has failed
+            if (!failure.compareAndSet(null, e)) failure.get().addSuppressed(e);
+        } finally {
+            executor.shutdownNow();
+        }
+        if (failure.get() != null) {
+            // subtract the purchase counts that have been merged from the incomplete files
+            for (FileInfo file : incompleteFiles) {
+                PurchaseTracker.retractContributions(purchases, file.barcodes, file.counts, file.numContributions);
+            }
+            throw failure.get();
+        }
+    }
+
+    // the reader stage: reads all files into batches of lines, and finally signals the end to every parser
+    private void read(List<File> files, BlockingQueue<Batch> rawBatches, AtomicReference<RuntimeException> failure) {
+        try {
+            for (File file : files) {
+                FileInfo info = new FileInfo(file);
+                int batchNr = 0;
+                List<String> lines = new ArrayList<>(this.batchSize);
+                boolean failed = false;
+                try (Scanner scanner = PurchaseTracker.createFileScanner(info.path)) {
+                    while (scanner.hasNext()) {
+                        lines.add(scanner.nextLine());
+                        if (lines.size() == this.batchSize && scanner.hasNext()) {
+                            rawBatches.put(new Batch(info, batchNr++, false, lines));
+                            lines = new ArrayList<>(this.batchSize);
+                        }
+                    }
+                    PurchaseTracker.checkFullyRead(scanner, info.path);
+                } catch (RuntimeException e) {
+                    // end the file with a failed batch, such that its merged batches are retracted, and read on
+                    if (!failure.compareAndSet(null, e)) failure.get().addSuppressed(e);
+                    failed = true;
+                    lines = new ArrayList<>();
+                }
+                Batch last = new Batch(info, batchNr, true, lines);
+                last.failed = failed;
+                rawBatches.put(last);
+            }
+        } catch (InterruptedException e) {
+            return;
+        }
+        try {
+            for (int p = 0; p < this.numParsers; p++) {
+                rawBatches.put(END);
+            }
+        } catch (InterruptedException e) {
+            // the pipeline is being shut down
+        }
+    }
+
+    // the parser stage: parses and resolves batches until the end is signalled, and passes the end on to the merger
+    private void parse(BlockingQueue<Batch> rawBatches, BlockingQueue<Batch> parsedBatches,
+                       List<Product> products, AtomicReference<RuntimeException> failure) {
+        try {
+            for (Batch batch = rawBatches.take(); batch != END; batch = rawBatches.take()) {
+                try {
+                    long started = System.nanoTime();
+                    PurchaseLines lines = new PurchaseLines();
+                    for (String line : batch.lines) {
+                        lines.add(line);
+                    }
+                    long parsed = System.nanoTime();
+                    batch.purchases = new ArrayList<>(lines.size);
+                    for (int i = 0; i < lines.size; i++) {
+                        Purchase purchase = Purchase.fromBarcode(lines.barcodes[i], lines.counts[i], products);
+                        if (purchase != null) batch.purchases.add(purchase);
+                    }
+                    batch.numLines = lines.getNumLines();
+                    batch.numFailures = lines.numFailures;
+                    batch.parseNanos = parsed - started;
+                    batch.resolveNanos = System.nanoTime() - parsed;
+                    batch.lines = null;
+                } catch (RuntimeException e) {
+                    failure.compareAndSet(null, e);
+                    batch.failed = true;
+                    batch.purchases = new ArrayList<>();
+                }
+                parsedBatches.put(batch);
+            }
+            parsedBatches.put(END);
+        } catch (InterruptedException e) {
+            // the pipeline is being shut down
+        }
+    }
+
+    // the merger stage: merges all parsed batches until every parser has signalled its end
+    private void merge(BlockingQueue<Batch> parsedBatches, OrderedList<Purchase> purchases, BinaryOperator<Purchase> merger,
+                       List<ImportListener> listeners, Set<FileInfo> incompleteFiles,
+                       Consumer<VaultCheckpoint.FileEntry> completed) throws InterruptedException {
+        int numEnded = 0;
+        while (numEnded < this.numParsers) {
+            Batch batch = parsedBatches.take();
+            if (batch == END) {
+                numEnded++;
+                continue;
+            }
+            FileInfo file = batch.file;
+            incompleteFiles.add(file);
+
+            long started = System.nanoTime();
+            // re-sort the accumulated purchases for efficient searching
+            purchases.sort();
+            for (Purchase purchase : batch.purchases) {
+                // register the contribution of every merged purchase, before the merger accumulates other counts into it
+                long barcode = purchase.getBarcode();
+                int count = purchase.getCount();
+                purchases.merge(purchase, merger);
+                file.contribute(barcode, count);
+            }
+            long merged = System.nanoTime();
+            for (ImportListener listener : listeners) {
+                listener.stageCompleted(ImportListener.Stage.PARSE, batch.parseNanos);
+                listener.stageCompleted(ImportListener.Stage.RESOLVE, batch.resolveNanos);
+                listener.stageCompleted(ImportListener.Stage.MERGE, merged - started);
+            }
+
+            file.numMerged++;
+            file.failed |= batch.failed;
+            file.numLines += batch.numLines;
+            file.numFailures += batch.numFailures;
+            file.numUnknownBarcodes += batch.numLines - batch.numFailures - batch.purchases.size();
+            if (batch.last) file.numBatches = batch.batchNr + 1;
+            if (file.numMerged == file.numBatches && !file.failed) {
+                // the file stays incomplete until it has been reported and checkpointed
+                completed.accept(this.completeFile(file, listeners));
+                incompleteFiles.remove(file);
+            }
+        }
+    }
+
+    private VaultCheckpoint.FileEntry completeFile(FileInfo file, List<ImportListener> listeners) {
+        for (ImportListener listener : listeners) {
+            listener.fileImported(file.path, file.size, file.numLines, file.numFailures, file.numUnknownBarcodes);
+        }
+        return new VaultCheckpoint.FileEntry(file.path, file.size, file.lastModified,
+                Arrays.copyOf(file.barcodes, file.numContributions), Arrays.copyOf(file.counts, file.numContributions));
+    }
+}
@@ -0,0 +1,38 @@
+package models;
+
+import java.util.Arrays;
+
+/**
+ * The parsed barcodes and counts of the text lines of a purchase file, in the format: barcode, amount
+ * Corrupt or incomplete lines are counted and skipped.
+ */
+class PurchaseLines {
+    long[] barcodes = new long[64];
+    int[] counts = new int[64];
+    int size = 0;
+    int numFailures = 0;
+
+    void add(String textLine) {
+        try {
+            String[] fields = textLine.split(",");
+            long barcode = Long.parseLong(fields[0].trim());
+            int count = Integer.parseInt(fields[1].trim());
+            if (this.size == this.barcodes.length) {
+                this.barcodes = Arrays.copyOf(this.barcodes, 2 * this.size);
+                this.counts = Arrays.copyOf(this.counts, 2 * this.size);
+            }
+            this.barcodes[this.size] = barcode;
+            this.counts[this.size] = count;
+            this.size++;
+        } catch (NumberFormatException | ArrayIndexOutOfBoundsException e) {
+            this.numFailures++;
+        }
+    }
+
+    /**
+     * @return the number of lines that have been added, including the corrupt lines
+     */
+    int getNumLines() {
+        return this.size + this.numFailures;
+    }
+}
@@ -0,0 +1,320 @@
+package models;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * A compact columnar binary snapshot of the products, the aggregated purchases and the vault checkpoint of a PurchaseTracker.
+ * The products are stored as columns: barcode long[], price double[], count int[], flags byte[] and a title string table.
+ * The flags tell whether a product is in the catalog and whether it has been purchased, such that the products
+ * of purchases that have been dropped from the catalog by a reload are kept with their purchases.
+ * The checkpoint is stored as columns of file sizes, modification times and the contributed (barcode, count) pairs,
+ * such that an incremental import can be applied on top of a loaded snapshot.
+ * Snapshots are written into a temporary file that atomically replaces the previous snapshot once it is on disk,
+ * such that a crash while saving leaves the previous snapshot intact.
+ * Snapshots are loaded through a memory-mapped file.
+ */
+public class PurchaseSnapshot {
+    private static final int MAGIC = 0x50534E50;        // "PSNP"
+    private static final int VERSION = 2;
+    private static final byte IN_CATALOG = 1;           // the product is in the catalog
+    private static final byte PURCHASED = 2;            // the product has been purchased, with the count of the count column
+
+    private final OrderedList<Product> products;
+    private final OrderedList<Purchase> purchases;
+    private final VaultCheckpoint checkpoint;
+
+    private PurchaseSnapshot(OrderedList<Product> products, OrderedList<Purchase> purchases, VaultCheckpoint checkpoint) {
+        this.products = products;
+        this.purchases = purchases;
+        this.checkpoint = checkpoint;
+    }
+
+    public OrderedList<Product> getProducts() {
+        return products;
+    }
+
+    public OrderedList<Purchase> getPurchases() {
+        return purchases;
+    }
+
+    public VaultCheckpoint getCheckpoint() {
+        return checkpoint;
+    }
+
+    /**
+     * writes a snapshot file, through a temporary file in the same folder that is forced to disk
+     * and then moved atomically over the previous snapshot
+     *
+     * @param filePath      the path of the snapshot file, which is replaced if it exists
+     * @param products      the products of the catalog
+     * @param purchases     the aggregated purchases
+     * @param checkpoint    the vault files that have been merged into the purchases
+     */
+    public static void save(Path filePath, List<Product> products, List<Purchase> purchases, VaultCheckpoint checkpoint) {
+        LongKeyedOrderedList<Product> orderedProducts = new LongKeyedOrderedList<>(Product::getBarcode, products.size());
+        orderedProducts.addAll(products);
+        orderedProducts.sort();
+        // add the products of purchases that are no longer in the catalog
+        for (Purchase purchase : purchases) {
+            if (orderedProducts.indexOfKey(purchase.getBarcode()) < 0) orderedProducts.add(purchase.getProduct());
+        }
+        orderedProducts.sort();
+        int nProducts = orderedProducts.size();
+
+        long[] barcodes = new long[nProducts];
+        double[] prices = new double[nProducts];
+        int[] counts = new int[nProducts];
+        byte[] flags = new byte[nProducts];
+        String[] titles = new String[nProducts];
+        for (int i = 0; i < nProducts; i++) {
+            Product product = orderedProducts.get(i);
+            barcodes[i] = product.getBarcode();
+            prices[i] = product.getPrice();
+            titles[i] = product.getTitle();
+        }
+        for (Product product : products) {
+            flags[orderedProducts.indexOfKey(product.getBarcode())] = IN_CATALOG;
+        }
+        for (Purchase purchase : purchases) {
+            int i = orderedProducts.indexOfKey(purchase.getBarcode());
+            counts[i] = purchase.getCount();
+            flags[i] |= PURCHASED;
+        }
+
+        List<String> paths = new ArrayList<>(checkpoint.getPaths());
+        int nFiles = paths.size();
+        long[] sizes = new long[nFiles];
+        long[] lastModifieds = new long[nFiles];
+        int[] entryOffsets = new int[nFiles + 1];
+        for (int f = 0; f < nFiles; f++) {
+            VaultCheckpoint.FileEntry entry = checkpoint.get(paths.get(f));
+            sizes[f] = entry.getSize();
+            lastModifieds[f] = entry.getLastModified();
+            entryOffsets[f + 1] = entryOffsets[f] + entry.getBarcodes().length;
+        }
+        long[] entryBarcodes = new long[entryOffsets[nFiles]];
+        int[] entryCounts = new int[entryOffsets[nFiles]];
+        for (int f = 0; f < nFiles; f++) {
+            VaultCheckpoint.FileEntry entry = checkpoint.get(paths.get(f));
+            System.arraycopy(entry.getBarcodes(), 0, entryBarcodes, entryOffsets[f], entry.getBarcodes().length);
+            System.arraycopy(entry.getCounts(), 0, entryCounts, entryOffsets[f], entry.getCounts().length);
+        }
+
+        byte[][] titleBytes = encode(titles);
+        byte[][] pathBytes = encode(paths.toArray(new String[0]));
+        int size = 4 * Integer.BYTES
+                + nProducts * (Long.BYTES + Double.BYTES + Integer.BYTES + Byte.BYTES) + stringTableSize(titleBytes)
+                + nFiles * 2 * Long.BYTES + (nFiles + 1) * Integer.BYTES
+                + entryBarcodes.length * (Long.BYTES + Integer.BYTES) + stringTableSize(pathBytes);
+
+        ByteBuffer buffer = ByteBuffer.allocate(size);
+        buffer.putInt(MAGIC).putInt(VERSION);
+        buffer.putInt(nProducts);
+        buffer.asLongBuffer().put(barcodes);
+        buffer.position(buffer.position() + nProducts * Long.BYTES);
+        buffer.asDoubleBuffer().put(prices);
+        buffer.position(buffer.position() + nProducts * Double.BYTES);
+        putInts(buffer, counts);
+        buffer.put(flags);
+        putStringTable(buffer, titleBytes);
+
+        buffer.putInt(nFiles);
+        buffer.asLongBuffer().put(sizes);
+        buffer.position(buffer.position() + nFiles * Long.BYTES);
+        buffer.asLongBuffer().put(lastModifieds);
+        buffer.position(buffer.position() + nFiles * Long.BYTES);
+        putInts(buffer, entryOffsets);
+        buffer.asLongBuffer().put(entryBarcodes);
+        buffer.position(buffer.position() + entryBarcodes.length * Long.BYTES);
+        putInts(buffer, entryCounts);
+        putStringTable(buffer, pathBytes);
+        buffer.flip();
+
+        Path tempPath = null;
+        try {
+            tempPath = Files.createTempFile(filePath.toAbsolutePath().getParent(), filePath.getFileName().toString(), ".tmp");
+            try (FileChannel channel = FileChannel.open(tempPath, StandardOpenOption.WRITE)) {
+                while (buffer.hasRemaining()) {
+                    channel.write(buffer);
+                }
+                channel.force(true);
+            }
+            Files.move(tempPath, filePath, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        } catch (IOException e) {
+            if (tempPath != null) {
+                try {
+                    Files.deleteIfExists(tempPath);
+                } catch (IOException suppressed) {
+                    e.addSuppressed(suppressed);
+                }
+            }
+            throw new UncheckedIOException("Cannot write snapshot on path: " + filePath, e);
+        }
+    }
+
+    /**
+     * reads a snapshot file through a memory mapping
+     *
+     * @param filePath  the path of the snapshot file
+     * @return          the snapshot with products and purchases ordered by barcode
+     * @throws IllegalArgumentException if the file is not a snapshot, or its counts or offsets exceed the file
+     */
+    public static PurchaseSnapshot load(Path filePath) {
+        MappedByteBuffer buffer;
+        try (FileChannel channel = FileChannel.open(filePath, StandardOpenOption.READ)) {
+            buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot read snapshot on path: " + filePath, e);
+        }
+        if (buffer.remaining() < 3 * Integer.BYTES || buffer.getInt() != MAGIC || buffer.getInt() != VERSION) {
+            throw new IllegalArgumentException("Not a purchase snapshot on path: " + filePath);
+        }
+
+        int nProducts = buffer.getInt();
+        checkCount(buffer, nProducts, Long.BYTES + Double.BYTES + Integer.BYTES + Byte.BYTES + Integer.BYTES, filePath);
+        long[] barcodes = getLongs(buffer, nProducts);
+        double[] prices = new double[nProducts];
+        buffer.asDoubleBuffer().get(prices);
+        buffer.position(buffer.position() + nProducts * Double.BYTES);
+        int[] counts = getInts(buffer, nProducts);
+        byte[] flags = new byte[nProducts];
+        buffer.get(flags);
+        String[] titles = getStringTable(buffer, nProducts, filePath);
+
+        OrderedList<Product> products = new LongKeyedOrderedList<>(Product::getBarcode, nProducts);
+        OrderedList<Purchase> purchases = new LongKeyedOrderedList<>(Purchase::getBarcode, nProducts);
+        for (int i = 0; i < nProducts; i++) {
+            Product product = new Product(barcodes[i], titles[i], prices[i]);
+            if ((flags[i] & IN_CATALOG) != 0) products.add(product);
+            if ((flags[i] & PURCHASED) != 0) purchases.add(new Purchase(product, counts[i]));
+        }
+        // the columns have been written in barcode order
+        products.sort();
+        purchases.sort();
+
+        checkCount(buffer, 1, Integer.BYTES, filePath);
+        int nFiles = buffer.getInt();
+        checkCount(buffer, nFiles, 2 * Long.BYTES + 2 * Integer.BYTES, filePath);
+        long[] sizes = getLongs(buffer, nFiles);
+        long[] lastModifieds = getLongs(buffer, nFiles);
+        checkCount(buffer, nFiles + 1L, Integer.BYTES, filePath);
+        int[] entryOffsets = getInts(buffer, nFiles + 1);
+        checkOffsets(entryOffsets, filePath);
+        checkCount(buffer, entryOffsets[nFiles], Long.BYTES + Integer.BYTES, filePath);
+        long[] entryBarcodes = getLongs(buffer, entryOffsets[nFiles]);
+        int[] entryCounts = getInts(buffer, entryOffsets[nFiles]);
+        String[] paths = getStringTable(buffer, nFiles, filePath);
+
+        VaultCheckpoint checkpoint = new VaultCheckpoint();
+        for (int f = 0; f < nFiles; f++) {
+            checkpoint.record(new VaultCheckpoint.FileEntry(paths[f], sizes[f], lastModifieds[f],
+                    Arrays.copyOfRange(entryBarcodes, entryOffsets[f], entryOffsets[f + 1]),
+                    Arrays.copyOfRange(entryCounts, entryOffsets[f], entryOffsets[f + 1])));
+        }
+        return new PurchaseSnapshot(products, purchases, checkpoint);
+    }
+
+    private static byte[][] encode(String[] strings) {
+        byte[][] bytes = new byte[strings.length][];
+        for (int i = 0; i < strings.length; i++) {
+            bytes[i] = strings[i] == null ? new byte[0] : strings[i].getBytes(StandardCharsets.UTF_8);
+        }
+        return bytes;
+    }
+
+    // a string table holds the end offsets of all strings, followed by the concatenated utf-8 bytes of all strings
+    private static int stringTableSize(byte[][] strings) {
+        int size = strings.length * Integer.BYTES;
+        for (byte[] string : strings) {
+            size += string.length;
+        }
+        return size;
+    }
+
+    private static void putStringTable(ByteBuffer buffer, byte[][] strings) {
+        int[] endOffsets = new int[strings.length];
+        int offset = 0;
+        for (int i = 0; i < strings.length; i++) {
+            offset += strings[i].length;
+            endOffsets[i] = offset;
+        }
+        putInts(buffer, endOffsets);
+        for (byte[] string : strings) {
+            buffer.put(string);
+        }
+    }
+
+    private static String[] getStringTable(ByteBuffer buffer, int n, Path filePath) {
+        int[] endOffsets = getInts(buffer, n);
+        checkOffsets(endOffsets, filePath);
+        if (n > 0) checkCount(buffer, endOffsets[n - 1], Byte.BYTES, filePath);
+        String[] strings = new String[n];
+        int base = buffer.position();
+        int offset = 0;
+        for (int i = 0; i < n; i++) {
+            strings[i] = new String(readBytes(buffer, base + offset, endOffsets[i] - offset), StandardCharsets.UTF_8);
+            offset = endOffsets[i];
+        }
+        buffer.position(base + offset);
+        return strings;
+    }
+
+    // fails unless the buffer holds at least count items of itemSize bytes
+    private static void checkCount(ByteBuffer buffer, long count, int itemSize, Path filePath) {
+        if (count < 0 || count * itemSize > buffer.remaining()) {
+            throw new IllegalArgumentException("Corrupt purchase snapshot on path: " + filePath
+                    + ", a count of " + count + " exceeds the file");
+        }
+    }
+
+    // fails unless the offsets are non-negative and ascending
+    private static void checkOffsets(int[] offsets, Path filePath) {
+        int previous = 0;
+        for (int offset : offsets) {
+            if (offset < previous) {
+                throw new IllegalArgumentException("Corrupt purchase snapshot on path: " + filePath
+                        + ", the offsets are not ascending");
+            }
+            previous = offset;
+        }
+    }
+
+    private static byte[] readBytes(ByteBuffer buffer, int position, int length) {
+        byte[] bytes = new byte[length];
+        ByteBuffer slice = buffer.duplicate();
+        slice.position(position);
+        slice.get(bytes);
+        return bytes;
+    }
+
+    private static void putInts(ByteBuffer buffer, int[] values) {
+        buffer.asIntBuffer().put(values);
+        buffer.position(buffer.position() + values.length * Integer.BYTES);
+    }
+
+    private static int[] getInts(ByteBuffer buffer, int n) {
+        int[] values = new int[n];
+        buffer.asIntBuffer().get(values);
+        buffer.position(buffer.position() + n * Integer.BYTES);
+        return values;
+    }
+
+    private static long[] getLongs(ByteBuffer buffer, int n) {
+        long[] values = new long[n];
+        buffer.asLongBuffer().get(values);
+        buffer.position(buffer.position() + n * Long.BYTES);
+        return values;
+    }
+}
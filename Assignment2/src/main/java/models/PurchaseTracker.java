@@ -2,43 +2,148 @@ package models;
 
 import java.io.File;
 import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Paths;
+import java.time.LocalDate;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
 import java.util.*;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.BinaryOperator;
 import java.util.function.Function;
 
 public class PurchaseTracker {
     private final String PURCHASE_FILE_PATTERN = ".*\\.txt";
+    private static final String TOTAL_VOLUME = "volume";
+    private static final String TOTAL_REVENUE = "revenue";
+    private static final int PARALLEL_TOPS_THRESHOLD = 100000;   // the number of purchases from which tops are ranked in parallel
 
-    private OrderedList<Product> products;        // the reference list of all Products available from the SuperMarket chain
+    // shared rankers, such that repeated ranking queries are served from the ranking cache
+    public static final Comparator<Purchase> WORST_VOLUME = Comparator.comparing(Purchase::getCount);
+    public static final Comparator<Purchase> BEST_VOLUME = WORST_VOLUME.reversed();
+    public static final Comparator<Purchase> BEST_REVENUE = Comparator.comparing(Purchase::getRevenue).reversed();
+
+    private final ProductCatalog catalog;         // the reference list of all Products available from the SuperMarket chain
     private OrderedList<Purchase> purchases;      // the aggregated volumes of all purchases of all products across all branches
+    private final VaultCheckpoint checkpoint = new VaultCheckpoint();   // the vault files that have been merged into purchases
+    private final ImportMetrics importMetrics = new ImportMetrics();    // the accumulated metrics of all purchase imports
+    private final List<ImportListener> importListeners = new CopyOnWriteArrayList<>();
+    private final RankingCache rankings = new RankingCache();         // the tops of the current purchases per ranker
+    private ImportMode importMode = ImportMode.SEQUENTIAL;
+
+    /**
+     * the ways in which the purchase files are read, parsed and merged
+     */
+    public enum ImportMode {
+        SEQUENTIAL,     // every file is read, parsed and merged in turn on the importing thread
+        PIPELINED       // files are read, parsed and merged concurrently, see PurchaseImportPipeline
+    }
+
+    // While merging we want to add the count of the item into the merged item.
+    private static final BinaryOperator<Purchase> ADD_COUNTS = (p1, p2) -> {
+        p1.addCount(p2.getCount());
+        return p1;
+    };
 
     public PurchaseTracker() {
         // initialize products and purchases with an empty ordered list which sorts items by barcode.
-        //  Use your generic implementation class OrderedArrayList
-        products = new OrderedArrayList<>(Comparator.comparing(Product::getBarcode));
-        purchases = new OrderedArrayList<>(Comparator.comparing(Purchase::getBarcode));
+        //  Use the long-keyed specialization such that all searches and merges run on the primitive barcodes
+        this(new ProductCatalog());
+    }
+
+    private PurchaseTracker(ProductCatalog catalog) {
+        this.catalog = catalog;
+        this.purchases = createPurchasesList();
+        this.importListeners.add(this.importMetrics);
+    }
+
+    /**
+     * creates an empty list of purchases ordered by barcode, which maintains the totals incrementally
+     * @return
+     */
+    private static OrderedList<Purchase> createPurchasesList() {
+        OrderedList<Purchase> purchases = new LongKeyedOrderedList<>(Purchase::getBarcode);
+        purchases.registerAggregate(TOTAL_VOLUME, Purchase::getCount);
+        purchases.registerAggregate(TOTAL_REVENUE, Purchase::getRevenue);
+        return purchases;
+    }
+
+    /**
+     * creates a view on a snapshot of the live purchase counts, sharing the product catalog of this tracker
+     * all statistics of the view, like showTops and showTotals, reflect the counts at the moment of the snapshot
+     *
+     * @param counter   the live counter which accumulates purchase events from the checkouts
+     * @return          a new tracker with the snapshot of the counter as its purchases
+     */
+    public PurchaseTracker liveView(ConcurrentPurchaseCounter counter) {
+        PurchaseTracker view = new PurchaseTracker(this.catalog);
+        counter.snapshot(this.catalog.getProducts(), view.purchases);
+        return view;
     }
 
 
     /**
      * imports all products from a resource file that is common to all branches of the Supermarket chain
+     * the new products are loaded off to the side and published at once, such that concurrent readers
+     * of the catalog never see a partially loaded catalog. Price updates apply to all accumulated purchases.
      *
      * @param resourceName
      */
     public void importProductsFromVault(String resourceName) {
+        importProductsFromFile(PurchaseTracker.class.getResource(resourceName).getPath());
+    }
 
-        this.products.clear();
+    /**
+     * imports all products from a text file, see importProductsFromVault
+     *
+     * @param filePath
+     */
+    public void importProductsFromFile(String filePath) {
 
-        // load all products from the text file
-        importItemsFromFile(this.products,
-                PurchaseTracker.class.getResource(resourceName).getPath(),
-                Product::fromLine);
+        // load all products from the text file and publish them
+        OrderedList<Product> products = this.catalog.reload(filePath);
 
-        // sort the products for efficient later retrieval
-        this.products.sort();
+        this.relinkPurchases(products);
 
-        System.out.printf("Imported %d products from %s.\n", products.size(), resourceName);
+        System.out.printf("Imported %d products from %s.\n", products.size(), new File(filePath).getName());
+    }
+
+    /**
+     * replaces every accumulated purchase by a purchase of the same count of the newly published product,
+     * such that the revenue reflects the new prices
+     * purchases of products that no longer are in the catalog keep their former product
+     *
+     * @param products  the newly published products
+     */
+    private synchronized void relinkPurchases(OrderedList<Product> products) {
+        for (int i = 0; i < this.purchases.size(); i++) {
+            Purchase purchase = this.purchases.get(i);
+            Purchase relinked = Purchase.fromBarcode(purchase.getBarcode(), purchase.getCount(), products);
+            if (relinked != null) this.purchases.set(i, relinked);
+        }
+        this.rankings.invalidate();
+    }
+
+    /**
+     * registers a listener that will be informed about the progress of all subsequent purchase imports
+     *
+     * @param listener
+     */
+    public void addImportListener(ImportListener listener) {
+        this.importListeners.add(listener);
+    }
+
+    public void removeImportListener(ImportListener listener) {
+        this.importListeners.remove(listener);
+    }
+
+    private void fireStageCompleted(ImportListener.Stage stage, long nanos) {
+        for (ImportListener listener : this.importListeners) {
+            listener.stageCompleted(stage, nanos);
+        }
     }
 
     /**
@@ -46,21 +151,108 @@ public class PurchaseTracker {
      *
      * @param resourceName
      */
-    public void importPurchasesFromVault(String resourceName) {
+    public synchronized void importPurchasesFromVault(String resourceName) {
         this.purchases.clear();
+        this.checkpoint.clear();
 
-        mergePurchasesFromFileRecursively(
-                PurchaseTracker.class.getResource(resourceName).getPath());
+        mergePurchasesFromVaultFolder(PurchaseTracker.class.getResource(resourceName).getPath(), new HashSet<>());
+        this.rankings.invalidate();
 
         System.out.printf("Accumulated purchases of %d products from files in %s.\n", this.purchases.size(), resourceName);
     }
 
     /**
-     * traverses the purchases vault recursively and processes every data file that it finds
+     * merges only the raw purchase data of files in the vault that are new or have changed since they were last merged
+     * the purchases of changed or deleted files are retracted before any new content is merged
+     *
+     * @param resourceName
+     * @return the number of files that have been merged
+     */
+    public int mergeNewPurchasesFromVault(String resourceName) {
+        return mergeNewPurchasesFromDirectory(PurchaseTracker.class.getResource(resourceName).getPath());
+    }
+
+    /**
+     * merges only the raw purchase data of files in the vault folder that are new or have changed since they were last merged
+     * the purchases of changed or deleted files are retracted before any new content is merged
+     * a file that cannot be read is not checkpointed, such that it is retried by the next merge;
+     * the failure is rethrown after the other files have been merged
+     *
+     * @param vaultPath the file path of the vault folder
+     * @return the number of files that have been merged
+     */
+    public synchronized int mergeNewPurchasesFromDirectory(String vaultPath) {
+        String rootPath = new File(vaultPath).getAbsolutePath();
+        Set<String> visitedPaths = new HashSet<>();
+        Set<String> deletedPaths;
+        int numMerged;
+        try {
+            numMerged = mergePurchasesFromVaultFolder(rootPath, visitedPaths);
+        } finally {
+            // retract the purchases of files that have disappeared from the vault
+            deletedPaths = this.checkpoint.pathsWithin(rootPath);
+            deletedPaths.removeAll(visitedPaths);
+            for (String path : deletedPaths) {
+                this.retractPurchases(this.checkpoint.remove(path));
+            }
+            this.rankings.invalidate();
+        }
+
+        System.out.printf("Merged %d new or changed files, retracted %d deleted files, %d files checked in %s.\n",
+                numMerged, deletedPaths.size(), visitedPaths.size(), vaultPath);
+        return numMerged;
+    }
+
+    /**
+     * merges the raw purchase data of all files in the vault folder that are new or have changed since they were last merged,
+     * according to the import mode. The earlier content of changed files is retracted first.
+     *
+     * @param filePath
+     * @param visitedPaths  collects the absolute paths of all data files in the vault
+     * @return the number of files that have been merged
+     */
+    private int mergePurchasesFromVaultFolder(String filePath, Set<String> visitedPaths) {
+        long started = System.nanoTime();
+        List<File> changedFiles = new ArrayList<>();
+        findChangedFilesRecursively(filePath, visitedPaths, changedFiles);
+        this.fireStageCompleted(ImportListener.Stage.WALK, System.nanoTime() - started);
+
+        for (File file : changedFiles) {
+            this.retractPurchases(this.checkpoint.remove(file.getAbsolutePath()));
+        }
+        if (this.importMode == ImportMode.PIPELINED) {
+            PurchaseImportPipeline pipeline = new PurchaseImportPipeline();
+            pipeline.run(changedFiles, this.catalog.getProducts(), this.purchases, ADD_COUNTS, this.importListeners,
+                    this.checkpoint::record);
+        } else {
+            RuntimeException failure = null;
+            for (File file : changedFiles) {
+                try {
+                    this.checkpoint.record(this.mergePurchasesFromFile(file.getAbsolutePath()));
+                } catch (RuntimeException e) {
+                    // a file only fails before any of its purchases have been merged, so just move on to the next file
+                    if (failure == null) failure = e;
+                    else failure.addSuppressed(e);
+                }
+            }
+            if (failure != null) throw failure;
+        }
+        long elapsed = System.nanoTime() - started;
+        for (ImportListener listener : this.importListeners) {
+            listener.importCompleted(elapsed);
+        }
+        return changedFiles.size();
+    }
+
+    /**
+     * traverses the purchases vault recursively and finds every data file
+     * that has not been merged yet or has changed since it was last merged
      *
      * @param filePath
+     * @param visitedPaths  collects the absolute paths of all data files in the vault
+     * @param changedFiles  collects the files that need to be merged
      */
-    private void mergePurchasesFromFileRecursively(String filePath) {
+    private void findChangedFilesRecursively(String filePath, Set<String> visitedPaths, List<File> changedFiles) {
 
         File file = new File(filePath);
 
@@ -69,20 +261,213 @@ public class PurchaseTracker {
             //  retrieve a list of all files and sub folders in this directory
             File[] filesInDirectory = Objects.requireNonNullElse(file.listFiles(), new File[0]);
 
-            //merge all purchases of all files and sub folders from the filesInDirectory list, recursively.
+            // find the data files within all files and sub folders from the filesInDirectory list, recursively.
             for (File f : filesInDirectory) {
-//                System.out.println(f);
-//                System.out.println(f.getPath());
-                mergePurchasesFromFileRecursively(f.getPath());
+                findChangedFilesRecursively(f.getPath(), visitedPaths, changedFiles);
             }
 
-        } else if (file.getName().matches(PURCHASE_FILE_PATTERN)) {
+        } else if (isPurchaseFile(file)) {
             // the file is a regular file that matches the target pattern for raw purchase files
-            // merge the content of this file into this.purchases
-            this.mergePurchasesFromFile(file.getAbsolutePath());
+            visitedPaths.add(file.getAbsolutePath());
+            if (!this.checkpoint.isUpToDate(file)) {
+                changedFiles.add(file);
+            }
         }
     }
 
+    /**
+     * subtracts the purchase counts that a file has contributed from the accumulated purchases
+     *
+     * @param entry the checkpoint entry of the file, or null if the file was not merged before
+     */
+    private void retractPurchases(VaultCheckpoint.FileEntry entry) {
+        if (entry == null) return;
+        long started = System.nanoTime();
+        retractContributions(this.purchases, entry.getBarcodes(), entry.getCounts(), entry.getBarcodes().length);
+        this.fireStageCompleted(ImportListener.Stage.MERGE, System.nanoTime() - started);
+    }
+
+    /**
+     * subtracts contributed purchase counts from the accumulated purchases, finding them by barcode
+     * such that also the contributions of products that have been dropped from the catalog since are retracted
+     * purchases that are left with a zero count are removed
+     *
+     * @param purchases         the accumulated purchases, ordered by barcode
+     * @param barcodes          the barcodes of the contributions
+     * @param counts            the counts of the contributions
+     * @param numContributions  the number of contributions in barcodes and counts
+     */
+    static void retractContributions(OrderedList<Purchase> purchases, long[] barcodes, int[] counts, int numContributions) {
+        purchases.sort();
+        for (int i = 0; i < numContributions; i++) {
+            // the ordered lists search by barcode, on the primitive keys of a LongKeyedOrderedList
+            int index = purchases.indexOf(new Purchase(new Product(barcodes[i]), 0));
+            if (index < 0) continue;
+            Purchase purchase = purchases.get(index);
+            int count = purchase.getCount() - counts[i];
+            if (count == 0) {
+                purchases.remove(index);
+            } else {
+                // replace rather than update the purchase, such that the aggregates account for the change
+                purchases.set(index, new Purchase(purchase.getProduct(), count));
+            }
+        }
+    }
+
+    /**
+     * imports all raw purchase data of all branches from the vault into a purchase cube,
+     * which keeps the date, city and store of every purchase from the hierarchical file structure of the vault
+     * the vault layout is purchases/date/city/store.txt, branches directly in a date folder get PurchaseCube.NO_CITY
+     * corrupt lines and lines with unknown barcodes are skipped, and counted in the summary
+     *
+     * @param resourceName
+     * @return the cube with all purchases in the vault
+     */
+    public PurchaseCube importPurchaseCubeFromVault(String resourceName) {
+        return importPurchaseCubeFromDirectory(PurchaseTracker.class.getResource(resourceName).getPath());
+    }
+
+    /**
+     * imports all raw purchase data of all branches from the vault folder into a purchase cube
+     *
+     * @param directoryPath the absolute path of the vault folder, with the date folders
+     * @return the cube with all purchases in the vault
+     */
+    public PurchaseCube importPurchaseCubeFromDirectory(String directoryPath) {
+        PurchaseCube cube = new PurchaseCube();
+        File vault = new File(directoryPath);
+        long numSkippedLines = 0;
+        for (File dateFolder : Objects.requireNonNullElse(vault.listFiles(File::isDirectory), new File[0])) {
+            numSkippedLines += addPurchasesToCubeRecursively(cube, dateFolder, dateFolder.getName(), PurchaseCube.NO_CITY);
+        }
+        System.out.printf("Accumulated %d purchase cells of %d stores on %d dates from files in %s, skipped %d lines.\n",
+                cube.getNumCells(), cube.getStores().size(), cube.getDates().size(), directoryPath, numSkippedLines);
+        return cube;
+    }
+
+    // returns the number of corrupt lines and lines with unknown barcodes that have been skipped
+    private long addPurchasesToCubeRecursively(PurchaseCube cube, File file, String date, String city) {
+        long numSkippedLines = 0;
+        if (file.isDirectory()) {
+            for (File f : Objects.requireNonNullElse(file.listFiles(), new File[0])) {
+                // a folder within a date folder holds the stores of a city
+                numSkippedLines += addPurchasesToCubeRecursively(cube, f, date, f.isDirectory() ? f.getName() : city);
+            }
+        } else if (isPurchaseFile(file)) {
+            String name = VaultCodecs.stripCompression(file.getName());
+            String store = name.substring(0, name.lastIndexOf('.'));
+            PurchaseLines lines = readPurchaseLines(file.getAbsolutePath());
+            List<Product> products = this.catalog.getProducts();
+            numSkippedLines += lines.numFailures;
+            for (int i = 0; i < lines.size; i++) {
+                Purchase purchase = Purchase.fromBarcode(lines.barcodes[i], lines.counts[i], products);
+                if (purchase == null) {
+                    numSkippedLines++;
+                } else {
+                    cube.add(purchase.getProduct(), date, city, store, purchase.getCount());
+                }
+            }
+        }
+        return numSkippedLines;
+    }
+
+    /**
+     * imports the raw purchase data of the most recent numDays days in the vault into a rolling purchase window
+     * the date folders of the vault are named yyyyMMdd and are fed into the window in chronological order,
+     * later purchases from live events can be recorded into the same window with PurchaseWindow.record
+     * folders that are not named as a date, corrupt lines and lines with unknown barcodes are skipped and reported
+     *
+     * @param resourceName
+     * @param numDays   the number of days in the window, e.g. PurchaseWindow.WEEK or PurchaseWindow.MONTH
+     * @return the window with the purchases of the last numDays days in the vault
+     */
+    public PurchaseWindow importPurchaseWindowFromVault(String resourceName, int numDays) {
+        return importPurchaseWindowFromDirectory(PurchaseTracker.class.getResource(resourceName).getPath(), numDays);
+    }
+
+    /**
+     * imports the raw purchase data of the most recent numDays days in the vault folder into a rolling purchase window
+     *
+     * @param directoryPath the absolute path of the vault folder, with the date folders
+     * @param numDays   the number of days in the window
+     * @return the window with the purchases of the last numDays days in the vault
+     */
+    public PurchaseWindow importPurchaseWindowFromDirectory(String directoryPath, int numDays) {
+        PurchaseWindow window = new PurchaseWindow(numDays);
+        File vault = new File(directoryPath);
+        File[] dateFolders = Objects.requireNonNullElse(vault.listFiles(File::isDirectory), new File[0]);
+        Arrays.sort(dateFolders, Comparator.comparing(File::getName));
+        long numSkippedLines = 0;
+        for (File dateFolder : dateFolders) {
+            LocalDate date;
+            try {
+                date = LocalDate.parse(dateFolder.getName(), DateTimeFormatter.BASIC_ISO_DATE);
+            } catch (DateTimeParseException e) {
+                System.out.printf("Skipped folder %s, which is not named as a yyyyMMdd date.\n", dateFolder.getPath());
+                continue;
+            }
+            numSkippedLines += addPurchasesToWindowRecursively(window, dateFolder, date);
+        }
+        System.out.printf("Accumulated purchases of %d products from %s until %s in %s, skipped %d lines.\n",
+                window.getPurchases().size(), window.getFirstDay(), window.getLastDay(), directoryPath, numSkippedLines);
+        return window;
+    }
+
+    // returns the number of corrupt lines and lines with unknown barcodes that have been skipped
+    private long addPurchasesToWindowRecursively(PurchaseWindow window, File file, LocalDate date) {
+        long numSkippedLines = 0;
+        if (file.isDirectory()) {
+            for (File f : Objects.requireNonNullElse(file.listFiles(), new File[0])) {
+                numSkippedLines += addPurchasesToWindowRecursively(window, f, date);
+            }
+        } else if (isPurchaseFile(file)) {
+            PurchaseLines lines = readPurchaseLines(file.getAbsolutePath());
+            List<Product> products = this.catalog.getProducts();
+            numSkippedLines += lines.numFailures;
+            for (int i = 0; i < lines.size; i++) {
+                Purchase purchase = Purchase.fromBarcode(lines.barcodes[i], lines.counts[i], products);
+                if (purchase == null) {
+                    numSkippedLines++;
+                } else {
+                    window.record(purchase, date);
+                }
+            }
+        }
+        return numSkippedLines;
+    }
+
+    /**
+     * saves the products, the aggregated purchases and the vault checkpoint into a binary snapshot file
+     *
+     * @param filePath
+     */
+    public synchronized void saveSnapshot(String filePath) {
+        PurchaseSnapshot.save(Paths.get(filePath), this.catalog.getProducts(), this.purchases, this.checkpoint);
+    }
+
+    /**
+     * replaces the products, the aggregated purchases and the vault checkpoint by the content of a binary snapshot file
+     * a subsequent mergeNewPurchasesFromVault only merges the vault files that are new or changed since the snapshot
+     *
+     * @param filePath
+     */
+    public synchronized void loadSnapshot(String filePath) {
+        PurchaseSnapshot snapshot = PurchaseSnapshot.load(Paths.get(filePath));
+
+        this.catalog.publish(snapshot.getProducts());
+        this.purchases.clear();
+        this.purchases.addAll(snapshot.getPurchases());
+        this.purchases.sort();
+        this.checkpoint.clear();
+        for (String path : snapshot.getCheckpoint().getPaths()) {
+            this.checkpoint.record(snapshot.getCheckpoint().get(path));
+        }
+        this.rankings.invalidate();
+
+        System.out.printf("Loaded %d products, purchases of %d products and %d vault files from %s.\n",
+                this.catalog.getProducts().size(), this.purchases.size(), this.checkpoint.size(), filePath);
+    }
+
     /**
      * show the top n purchases according to the ranking criterium specified by ranker
      *
@@ -90,31 +475,88 @@ public class PurchaseTracker {
      * @param subTitle some title text that clarifies the list
      * @param ranker   the comparator used to rank the purchases
      */
-    public void showTops(int n, String subTitle, Comparator<Purchase> ranker) {
+    public synchronized void showTops(int n, String subTitle, Comparator<Purchase> ranker) {
         System.out.printf("%d purchases with %s:\n", n, subTitle);
-        // helper list to rank the purchases without disturbing the ordening of the original list
-        OrderedList<Purchase> tops = new OrderedArrayList<>(ranker);
-
-        // add all purchases to the new tops list, and sort the list
-        tops.addAll(this.purchases);
-        tops.sort();
+        List<Purchase> tops = getTops(n, ranker);
 
         // show the top items
-        for (int rank = 0; rank < n && rank < tops.size(); rank++) {
+        for (int rank = 0; rank < tops.size(); rank++) {
             System.out.printf("%d: %s\n", rank + 1, tops.get(rank));
         }
     }
 
+    /**
+     * finds the top n purchases according to the ranking criterium specified by ranker
+     * streams over the purchases with a bounded heap, without copying or disturbing the ordening of the original list
+     * large collections of purchases are ranked in parallel
+     * the tops are cached per ranker instance until the purchases change by the next import,
+     * so use the same ranker, like WORST_VOLUME or BEST_REVENUE, for repeated queries
+     * the ranking holds the monitor of this tracker, such that it never sees a partial merge, e.g. of a VaultWatcher
+     *
+     * @param n        the number of top purchases to be found
+     * @param ranker   the comparator used to rank the purchases
+     * @return         a read-only list of at most n purchases, best ranked first
+     */
+    public synchronized List<Purchase> getTops(int n, Comparator<Purchase> ranker) {
+        long version = this.rankings.getVersion();
+        List<Purchase> tops = this.rankings.get(ranker, n);
+        if (tops != null) return tops;
+
+        tops = this.purchases.size() >= PARALLEL_TOPS_THRESHOLD ?
+                this.purchases.topsParallel(n, ranker) :
+                this.purchases.tops(n, ranker);
+        return this.rankings.put(ranker, n, version, tops);
+    }
+
+    /**
+     * show the approximate top n best selling products from a heavy-hitter sketch of a purchase stream
+     * every count is shown with its maximum overestimation
+     *
+     * @param n        the number of top purchases to be shown
+     * @param subTitle some title text that clarifies the list
+     * @param sketch   the sketch of the purchase stream
+     */
+    public void showApproximateTops(int n, String subTitle, HeavyHitterSketch sketch) {
+        System.out.printf("%d purchases with %s (approximately, error bound %d):\n", n, subTitle, sketch.getErrorBound());
+        List<Product> products = this.catalog.getProducts();
+        int rank = 0;
+        for (HeavyHitterSketch.Entry entry : sketch.topK(n)) {
+            System.out.printf("%d: %s\n", ++rank, formatApproximate(entry, products));
+        }
+    }
+
+    /**
+     * formats an estimated count like a Purchase, barcode/title/count/revenue, followed by its maximum overestimation
+     * the estimate is formatted as a long, as estimates of large streams may exceed the int count of a Purchase
+     *
+     * @param entry     an entry of a heavy-hitter sketch
+     * @param products  the products to find the title and price of the barcode in
+     * @return
+     */
+    static String formatApproximate(HeavyHitterSketch.Entry entry, List<Product> products) {
+        Product product = Purchase.findProduct(entry.getBarcode(), products);
+        String purchase = product != null ?
+                entry.getBarcode() + "/" + product.getTitle() + "/" + entry.getCount() + "/"
+                        + String.format("%.2f", entry.getCount() * product.getPrice()).replace(',', '.') :
+                entry.getBarcode() + "/?/" + entry.getCount();
+        return purchase + " (+/- " + entry.getError() + ")";
+    }
+
     /**
      * shows total volume and total revenue sales statistics
      */
-    public void showTotals() {
-        // TODO provide the mappers to calculate the specified aggregated quantities
-        System.out.printf("Total volume of all purchases: %.0f\n",
-                this.purchases.aggregate(Purchase::getCount));
-        System.out.printf("Total revenue from all purchases: %.2f\n",
-                this.purchases.aggregate(Purchase::getRevenue)
-                );
+    public synchronized void showTotals() {
+        // read the aggregates that have been maintained during the imports
+        System.out.printf("Total volume of all purchases: %.0f\n", this.getTotalVolume());
+        System.out.printf("Total revenue from all purchases: %.2f\n", this.getTotalRevenue());
+    }
+
+    public synchronized double getTotalVolume() {
+        return this.purchases.getAggregate(TOTAL_VOLUME).getSum();
+    }
+
+    public synchronized double getTotalRevenue() {
+        return this.purchases.getAggregate(TOTAL_REVENUE).getSum();
     }
 
     /**
@@ -126,84 +568,183 @@ public class PurchaseTracker {
      * @param <E>       the (generic) type of each item
      */
     public static <E> void importItemsFromFile(List<E> items, String filePath, Function<String, E> converter) {
-        int originalNumItems = items.size();
-        Scanner scanner = createFileScanner(filePath);
-        //  read all source lines from the scanner,
-        //  convert each line to an item of type E and
-        //  and add each item to the list
-        while (scanner.hasNext()) {
-            // input another line with author information
-            String line = scanner.nextLine();
-            //  convert the line to an instance of E
-            E genericLine = converter.apply(line);
-            //  add the item to the list of items
-            items.add(genericLine);
+        try (Scanner scanner = createFileScanner(filePath)) {
+            //  read all source lines from the scanner,
+            //  convert each line to an item of type E and
+            //  and add each item to the list
+            while (scanner.hasNext()) {
+                // input another line with author information
+                String line = scanner.nextLine();
+                //  convert the line to an instance of E
+                E genericLine = converter.apply(line);
+                //  add the item to the list of items, skipping corrupt or unresolvable lines
+                if (genericLine != null) items.add(genericLine);
+            }
+            checkFullyRead(scanner, filePath);
         }
-//        System.out.printf("Imported %d items from %s.\n", items.size() - originalNumItems, filePath);
     }
 
     /**
      * imports another batch of raw purchase data from the filePath text file
      * and merges the purchase amounts with the earlier imported and accumulated collection in this.purchases
+     * corrupt lines and lines with unknown barcodes are skipped, and reported to the import listeners
      *
      * @param filePath
+     * @return the checkpoint entry of the file, with the purchase counts that it contributed
      */
-    private void mergePurchasesFromFile(String filePath) {
-        int originalNumPurchases = purchases.size();
-
-        // create a temporary ordered list for the additional purchases, ordered by same comparator as the main list
-        OrderedList<Purchase> newPurchases = new OrderedArrayList<>(this.purchases.getOrdening());
+    private VaultCheckpoint.FileEntry mergePurchasesFromFile(String filePath) {
+        // register the state of the file before reading it, such that any later change will be detected
+        File file = new File(filePath);
+        long size = file.length();
+        long lastModified = file.lastModified();
+
+        // parse all lines of the file into barcodes and counts
+        long started = System.nanoTime();
+        PurchaseLines lines = readPurchaseLines(filePath);
+        long parsed = System.nanoTime();
+
+        // resolve all purchases of the file against one version of the catalog
+        //  into a temporary ordered list for the additional purchases, ordered by barcode as the main list
+        List<Product> products = this.catalog.getProducts();
+        OrderedList<Purchase> newPurchases = new LongKeyedOrderedList<>(Purchase::getBarcode, lines.size);
+        for (int i = 0; i < lines.size; i++) {
+            Purchase purchase = Purchase.fromBarcode(lines.barcodes[i], lines.counts[i], products);
+            if (purchase != null) newPurchases.add(purchase);
+        }
+        int numUnknownBarcodes = lines.size - newPurchases.size();
+
+        // register the contributions of this file, before the merger accumulates other counts into the new purchases
+        long[] barcodes = new long[newPurchases.size()];
+        int[] counts = new int[newPurchases.size()];
+        for (int i = 0; i < newPurchases.size(); i++) {
+            barcodes[i] = newPurchases.get(i).getBarcode();
+            counts[i] = newPurchases.get(i).getCount();
+        }
+        long resolved = System.nanoTime();
 
         // re-sort the accumulated purchases for efficient searching
         this.purchases.sort();
 
-        // TODO import all purchases from the specified file into the newPurchases list
-        importItemsFromFile(newPurchases, filePath,
-                (String textLine)-> {
-                    return  Purchase.fromLine(textLine, this.products);
-                }
-        );
-
-//        for (Purchase p: newPurchases) {
-//            System.out.println(p);
-//        }
-
-        // TODO merge all purchases from the newPurchases list into this.purchases
+        // merge all purchases from the newPurchases list into this.purchases
         for (Purchase purchase : newPurchases) {
-            this.purchases.merge(purchase,
-                    // While merging we want to add the count of the item into the merged item.
-                    (p1,p2) ->  {p1.addCount(p2.getCount());
-                        return p1;}
-            );
+            this.purchases.merge(purchase, ADD_COUNTS);
+        }
+        long merged = System.nanoTime();
+
+        for (ImportListener listener : this.importListeners) {
+            listener.fileImported(filePath, size, lines.getNumLines(), lines.numFailures, numUnknownBarcodes);
+            listener.stageCompleted(ImportListener.Stage.PARSE, parsed - started);
+            listener.stageCompleted(ImportListener.Stage.RESOLVE, resolved - parsed);
+            listener.stageCompleted(ImportListener.Stage.MERGE, merged - resolved);
         }
 
-//        for (Purchase p: purchases) {
-//            System.out.println(p);
-//        }
+        return new VaultCheckpoint.FileEntry(filePath, size, lastModified, barcodes, counts);
+    }
+
+    /**
+     * parses all lines of a raw purchase file into barcodes and counts, counting and skipping corrupt lines
+     *
+     * @param filePath
+     * @return the parsed lines of the file
+     */
+    static PurchaseLines readPurchaseLines(String filePath) {
+        PurchaseLines lines = new PurchaseLines();
+        try (Scanner scanner = createFileScanner(filePath)) {
+            while (scanner.hasNext()) {
+                lines.add(scanner.nextLine());
+            }
+            checkFullyRead(scanner, filePath);
+        }
+        return lines;
+    }
 
-        int addedCount = purchases.size() - originalNumPurchases;
-//        System.out.printf("Merged %d, added %d new purchases from %s.\n", newPurchases.size() - addedCount, addedCount, filePath);
+    /**
+     * checks whether the file is a raw purchase file, also if it has been compressed
+     *
+     * @param file
+     * @return
+     */
+    private boolean isPurchaseFile(File file) {
+        return VaultCodecs.stripCompression(file.getName()).matches(PURCHASE_FILE_PATTERN);
     }
 
     /**
      * helper method to create a scanner on a file an handle the exception
+     * compressed files are decompressed transparently, see VaultCodecs
      *
      * @param filePath
      * @return
      */
-    private static Scanner createFileScanner(String filePath) {
+    static Scanner createFileScanner(String filePath) {
         try {
-            return new Scanner(new File(filePath));
+            return new Scanner(VaultCodecs.open(filePath), StandardCharsets.UTF_8);
         } catch (FileNotFoundException e) {
             throw new RuntimeException("FileNotFound exception on path: " + filePath);
+        } catch (IOException e) {
+            throw new RuntimeException("IO exception on path: " + filePath, e);
+        }
+    }
+
+    /**
+     * fails if a scanner has stopped at a read error rather than at the end of the file,
+     * as a Scanner reports read errors, like those of a truncated compressed file, as the end of its input
+     *
+     * @param scanner   a scanner that has no more input
+     * @param filePath
+     */
+    static void checkFullyRead(Scanner scanner, String filePath) {
+        if (scanner.ioException() != null) {
+            throw new UncheckedIOException("Cannot read the complete file on path: " + filePath, scanner.ioException());
         }
     }
 
+    /**
+     * finds all products with fromBarcode <= barcode < toBarcode, e.g. all products of one manufacturer's GS1 prefix
+     *
+     * @param fromBarcode   the inclusive lower bound
+     * @param toBarcode     the exclusive upper bound
+     * @return              a read-only view on the products in the range, ordered by barcode
+     */
+    public List<Product> getProductsInBarcodeRange(long fromBarcode, long toBarcode) {
+        return this.catalog.getProducts().rangeView(new Product(fromBarcode), new Product(toBarcode));
+    }
+
+    /**
+     * @return the currently published version of the products, which shall not be modified
+     */
     public List<Product> getProducts() {
-        return products;
+        return this.catalog.getProducts();
+    }
+
+    public ImportMode getImportMode() {
+        return importMode;
+    }
+
+    public void setImportMode(ImportMode importMode) {
+        this.importMode = importMode;
+    }
+
+    /**
+     * @return the accumulated metrics of all purchase imports of this tracker
+     */
+    public ImportMetrics getImportMetrics() {
+        return importMetrics;
     }
 
+    public ProductCatalog getCatalog() {
+        return catalog;
+    }
+
+    /**
+     * @return the accumulated purchases, which shall not be modified, as that would bypass the ranking cache
+     *          while purchases may be merged concurrently, e.g. by a VaultWatcher,
+     *          iterate the purchases while holding the monitor of this tracker
+     */
     public List<Purchase> getPurchases() {
         return purchases;
     }
+
+    public VaultCheckpoint getCheckpoint() {
+        return checkpoint;
+    }
 }
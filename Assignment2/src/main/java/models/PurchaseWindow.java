@@ -0,0 +1,190 @@
+package models;
+
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The purchase volumes and revenues of the last numDays days, e.g. a rolling week or month, per product.
+ * Every product keeps a ring buffer of per-day counts, next to its total count within the window.
+ * When the window rolls over to a new day, the counts of the day that falls out of the window
+ * are subtracted from the window totals and the ring slot is reused for the new day,
+ * which takes O(1) time per product per day. No history beyond the window is kept or rescanned.
+ * Purchases of days that have already fallen out of the window are ignored.
+ */
+public class PurchaseWindow {
+
+    public static final int WEEK = 7;
+    public static final int MONTH = 30;
+    private static final int INITIAL_CAPACITY = 16;
+
+    private final int numDays;
+    private final Map<Long, Integer> rows = new HashMap<>();    // the row of every product in the window
+    private Purchase[] totals;          // totals[row] holds the product of the row and its count within the window
+    private int[] dayCounts;            // dayCounts[row * numDays + day % numDays] is the count of the row on that day
+    private int numRows;
+    private long lastDay;               // the epoch day of the most recent day in the window
+    private long totalVolume;
+    private double totalRevenue;
+    // representation-invariant
+    //      the ring slots of every row hold the counts of the days lastDay - numDays < day <= lastDay
+    //      totals[row].getCount() == the sum of the ring slots of the row
+
+    public PurchaseWindow(int numDays) {
+        if (numDays <= 0) throw new IllegalArgumentException("A window shall span at least one day: " + numDays);
+        this.numDays = numDays;
+        this.totals = new Purchase[INITIAL_CAPACITY];
+        this.dayCounts = new int[INITIAL_CAPACITY * numDays];
+        this.numRows = 0;
+        this.lastDay = Long.MIN_VALUE;
+        this.totalVolume = 0;
+        this.totalRevenue = 0.0;
+    }
+
+    public int getNumDays() {
+        return numDays;
+    }
+
+    /**
+     * @return the most recent day in the window, or null if the window has not started yet
+     */
+    public LocalDate getLastDay() {
+        return this.lastDay != Long.MIN_VALUE ? LocalDate.ofEpochDay(this.lastDay) : null;
+    }
+
+    /**
+     * @return the oldest day in the window, or null if the window has not started yet
+     */
+    public LocalDate getFirstDay() {
+        return this.lastDay != Long.MIN_VALUE ? LocalDate.ofEpochDay(this.lastDay - this.numDays + 1) : null;
+    }
+
+    /**
+     * registers the purchases of a product on a given day, and rolls the window over to that day if it is more recent
+     *
+     * @param purchase  the product and the count that has been purchased
+     * @param date      the day of the purchases
+     * @return          false if the day has already fallen out of the window and the purchases have been ignored
+     */
+    public boolean record(Purchase purchase, LocalDate date) {
+        long day = date.toEpochDay();
+        this.advanceTo(day);
+        if (day <= this.lastDay - this.numDays) return false;
+
+        int row = this.rowOf(purchase.getProduct());
+        this.dayCounts[row * this.numDays + slotOf(day)] += purchase.getCount();
+        this.totals[row].addCount(purchase.getCount());
+        this.totalVolume += purchase.getCount();
+        this.totalRevenue += purchase.getRevenue();
+        return true;
+    }
+
+    /**
+     * rolls the window over to the given day, expiring the counts of all days that fall out of the window
+     * a day that is not more recent than the current last day of the window leaves the window unchanged
+     *
+     * @param date
+     */
+    public void advanceTo(LocalDate date) {
+        this.advanceTo(date.toEpochDay());
+    }
+
+    private void advanceTo(long day) {
+        if (this.lastDay == Long.MIN_VALUE) {
+            this.lastDay = day;
+            return;
+        }
+        // at most numDays slots need to be expired, however far the window moves
+        long firstExpiredDay = Math.max(this.lastDay + 1, day - this.numDays + 1);
+        for (long d = firstExpiredDay; d <= day; d++) {
+            this.expireSlot(slotOf(d));
+        }
+        this.lastDay = Math.max(this.lastDay, day);
+    }
+
+    // subtracts the counts of one day from the window totals and clears its slot in all rows
+    private void expireSlot(int slot) {
+        for (int row = 0; row < this.numRows; row++) {
+            int count = this.dayCounts[row * this.numDays + slot];
+            if (count != 0) {
+                Purchase total = this.totals[row];
+                total.addCount(-count);
+                this.totalVolume -= count;
+                this.totalRevenue -= count * total.getProduct().getPrice();
+                this.dayCounts[row * this.numDays + slot] = 0;
+            }
+        }
+    }
+
+    private int slotOf(long day) {
+        return (int) Math.floorMod(day, (long) this.numDays);
+    }
+
+    // finds the row of the product, or adds a new row for it
+    private int rowOf(Product product) {
+        Integer row = this.rows.get(product.getBarcode());
+        if (row != null) return row;
+        if (this.numRows == this.totals.length) {
+            this.totals = Arrays.copyOf(this.totals, 2 * this.numRows);
+            this.dayCounts = Arrays.copyOf(this.dayCounts, 2 * this.numRows * this.numDays);
+        }
+        this.totals[this.numRows] = new Purchase(product, 0);
+        this.rows.put(product.getBarcode(), this.numRows);
+        return this.numRows++;
+    }
+
+    /**
+     * @param barcode
+     * @return  the number of purchases of the product within the window
+     */
+    public int getVolume(long barcode) {
+        Integer row = this.rows.get(barcode);
+        return row != null ? this.totals[row].getCount() : 0;
+    }
+
+    /**
+     * @param barcode
+     * @return  the revenue of the purchases of the product within the window
+     */
+    public double getRevenue(long barcode) {
+        Integer row = this.rows.get(barcode);
+        return row != null ? this.totals[row].getRevenue() : 0.0;
+    }
+
+    public long getTotalVolume() {
+        return totalVolume;
+    }
+
+    public double getTotalRevenue() {
+        return totalRevenue;
+    }
+
+    /**
+     * @return a new list with the window totals of all products that have been purchased within the window,
+     *          ordered by barcode
+     */
+    public OrderedList<Purchase> getPurchases() {
+        OrderedList<Purchase> purchases = new LongKeyedOrderedList<>(Purchase::getBarcode, this.numRows);
+        for (int row = 0; row < this.numRows; row++) {
+            Purchase total = this.totals[row];
+            if (total.getCount() != 0) purchases.add(new Purchase(total.getProduct(), total.getCount()));
+        }
+        purchases.sort();
+        return purchases;
+    }
+
+    /**
+     * finds the top n products within the window according to the ranking criterium specified by ranker
+     * only the current window totals are ranked, the per-day history is not visited
+     *
+     * @param n        the number of top purchases to be found
+     * @param ranker   the comparator used to rank the purchases
+     * @return         at most n window totals, best ranked first
+     */
+    public List<Purchase> tops(int n, Comparator<Purchase> ranker) {
+        return this.getPurchases().tops(n, ranker);
+    }
+}
@@ -0,0 +1,79 @@
+package models;
+
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Caches the top n purchases per ranker, for the version of the purchases that they have been ranked on.
+ * Every change of the purchases shall be followed by invalidate(), which moves on to a new version.
+ * The rankers are matched by identity, so repeated queries shall use the same ranker instances,
+ * e.g. the ranker constants of PurchaseTracker.
+ * The tops of a smaller n are served from the cached tops of a larger n, as rankings are stable.
+ */
+class RankingCache {
+
+    private static class Entry {
+        final long version;
+        final int n;
+        final List<Purchase> tops;
+
+        Entry(long version, int n, List<Purchase> tops) {
+            this.version = version;
+            this.n = n;
+            this.tops = tops;
+        }
+    }
+
+    private final AtomicLong version = new AtomicLong();
+    private final Map<Comparator<Purchase>, Entry> entries = new ConcurrentHashMap<>();
+
+    /**
+     * @return the current version of the purchases
+     */
+    long getVersion() {
+        return this.version.get();
+    }
+
+    /**
+     * discards all cached rankings, after the purchases have changed
+     */
+    void invalidate() {
+        this.version.incrementAndGet();
+        this.entries.clear();
+    }
+
+    /**
+     * @param ranker
+     * @param n
+     * @return the cached top n of the current version of the purchases, or null if it has not been cached
+     */
+    List<Purchase> get(Comparator<Purchase> ranker, int n) {
+        Entry entry = this.entries.get(ranker);
+        if (entry == null || entry.version != this.version.get()) return null;
+        // fewer tops than requested means that all purchases have been ranked
+        if (entry.n < n && entry.tops.size() == entry.n) return null;
+        return n < entry.tops.size() ? entry.tops.subList(0, n) : entry.tops;
+    }
+
+    /**
+     * caches a ranking, unless the purchases have changed since the ranking started
+     *
+     * @param ranker
+     * @param n
+     * @param version   the version of the purchases when the ranking started
+     * @param tops      the top n purchases
+     * @return a read-only view on the tops
+     */
+    List<Purchase> put(Comparator<Purchase> ranker, int n, long version, List<Purchase> tops) {
+        List<Purchase> cachedTops = Collections.unmodifiableList(tops);
+        if (version == this.version.get()) {
+            this.entries.merge(ranker, new Entry(version, n, cachedTops),
+                    (former, latest) -> former.version == latest.version && former.n > latest.n ? former : latest);
+        }
+        return cachedTops;
+    }
+}
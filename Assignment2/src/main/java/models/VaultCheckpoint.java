@@ -0,0 +1,128 @@
+package models;
+
+import java.io.File;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Records which files of a purchases vault have been merged, by their size and last modification time,
+ * together with the purchase counts that each file has contributed.
+ * The contributions allow a changed or deleted file to be retracted from the accumulated purchases
+ * before its new content is merged.
+ */
+public class VaultCheckpoint {
+
+    /**
+     * the state of a merged file and the (barcode, count) pairs that it contributed, one pair per barcode,
+     * such that the memory of the checkpoint is bounded by the number of products per file rather than by its lines
+     */
+    public static class FileEntry {
+        private final String path;
+        private final long size;
+        private final long lastModified;
+        private final long[] barcodes;
+        private final int[] counts;
+
+        /**
+         * @param path
+         * @param size
+         * @param lastModified
+         * @param barcodes      the barcodes of the contributions, in any order and possibly repeated
+         * @param counts        the counts of the contributions, which are added up per barcode
+         */
+        public FileEntry(String path, long size, long lastModified, long[] barcodes, int[] counts) {
+            this.path = path;
+            this.size = size;
+            this.lastModified = lastModified;
+
+            // aggregate the counts per distinct barcode, in barcode order
+            long[] distinctBarcodes = barcodes.clone();
+            Arrays.sort(distinctBarcodes);
+            int numDistinct = 0;
+            for (int i = 0; i < distinctBarcodes.length; i++) {
+                if (i == 0 || distinctBarcodes[i] != distinctBarcodes[i - 1]) {
+                    distinctBarcodes[numDistinct++] = distinctBarcodes[i];
+                }
+            }
+            this.barcodes = Arrays.copyOf(distinctBarcodes, numDistinct);
+            this.counts = new int[numDistinct];
+            for (int i = 0; i < barcodes.length; i++) {
+                this.counts[Arrays.binarySearch(this.barcodes, barcodes[i])] += counts[i];
+            }
+        }
+
+        public String getPath() {
+            return path;
+        }
+
+        public long getSize() {
+            return size;
+        }
+
+        public long getLastModified() {
+            return lastModified;
+        }
+
+        public long[] getBarcodes() {
+            return barcodes;
+        }
+
+        public int[] getCounts() {
+            return counts;
+        }
+    }
+
+    private final Map<String, FileEntry> entries = new HashMap<>();
+
+    /**
+     * @param file
+     * @return  whether the file has been merged before and has not changed since
+     */
+    public boolean isUpToDate(File file) {
+        FileEntry entry = this.entries.get(file.getAbsolutePath());
+        return entry != null && entry.size == file.length() && entry.lastModified == file.lastModified();
+    }
+
+    public FileEntry get(String path) {
+        return this.entries.get(path);
+    }
+
+    public void record(FileEntry entry) {
+        this.entries.put(entry.getPath(), entry);
+    }
+
+    public FileEntry remove(String path) {
+        return this.entries.remove(path);
+    }
+
+    /**
+     * @param rootPath  the absolute path of a vault folder
+     * @return          the paths of all recorded files within the folder
+     */
+    public Set<String> pathsWithin(String rootPath) {
+        String prefix = rootPath.endsWith(File.separator) ? rootPath : rootPath + File.separator;
+        Set<String> paths = new HashSet<>();
+        for (String path : this.entries.keySet()) {
+            if (path.startsWith(prefix)) paths.add(path);
+        }
+        return paths;
+    }
+
+    /**
+     * @return  the paths of all recorded files
+     */
+    public Set<String> getPaths() {
+        return this.entries.keySet();
+    }
+
+    public int size() {
+        return this.entries.size();
+    }
+
+    public void clear() {
+        this.entries.clear();
+    }
+}
@@ -0,0 +1,183 @@
+package models;
+
+import java.io.BufferedInputStream;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.InflaterInputStream;
+
+/**
+ * Opens the files of a vault by their file name extension, with transparent streaming decompression of
+ * compressed files: .gz (gzip) and .zz or .deflate (zlib) out of the box, other codecs can be registered.
+ * Compressed files are decompressed ahead by a separate thread into a bounded queue of blocks,
+ * such that decompression runs in parallel with the parsing of the decompressed text.
+ * Any failure of the decoder, like a truncated or corrupt file, is rethrown as an IOException by the reading thread.
+ * Readers that wrap the stream into a Scanner shall check Scanner.ioException, as a Scanner reports it as end of input.
+ */
+public class VaultCodecs {
+
+    /**
+     * wraps a stream of compressed bytes into a stream of decompressed bytes
+     */
+    public interface Decoder {
+        InputStream decode(InputStream compressed) throws IOException;
+    }
+
+    private static final int BLOCK_SIZE = 64 * 1024;
+    private static final int READ_AHEAD_BLOCKS = 8;
+    private static final Map<String, Decoder> decoders = new LinkedHashMap<>();
+    private static final ExecutorService decompressors = Executors.newCachedThreadPool(runnable -> {
+        Thread thread = new Thread(runnable, "vault-decompressor");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    static {
+        register(".gz", compressed -> new GZIPInputStream(compressed, BLOCK_SIZE));
+        register(".zz", compressed -> new InflaterInputStream(compressed));
+        register(".deflate", compressed -> new InflaterInputStream(compressed));
+    }
+
+    /**
+     * registers a codec for files with the given extension, e.g. a zstd decoder for ".zst"
+     * @param extension
+     * @param decoder
+     */
+    public static synchronized void register(String extension, Decoder decoder) {
+        decoders.put(extension, decoder);
+    }
+
+    /**
+     * @param fileName
+     * @return  the extension of a registered codec that the file name ends with, or null for uncompressed files
+     */
+    public static synchronized String compressionOf(String fileName) {
+        for (String extension : decoders.keySet()) {
+            if (fileName.endsWith(extension)) return extension;
+        }
+        return null;
+    }
+
+    /**
+     * @param fileName
+     * @return  the file name without the extension of a registered codec
+     */
+    public static String stripCompression(String fileName) {
+        String extension = compressionOf(fileName);
+        return extension == null ? fileName : fileName.substring(0, fileName.length() - extension.length());
+    }
+
+    /**
+     * opens a file of the vault for reading its decompressed content
+     * @param filePath
+     * @return  a stream of the decompressed bytes of the file
+     */
+    public static InputStream open(String filePath) throws IOException {
+        InputStream file = new BufferedInputStream(new FileInputStream(filePath), BLOCK_SIZE);
+        String extension = compressionOf(filePath);
+        if (extension == null) return file;
+        Decoder decoder;
+        synchronized (VaultCodecs.class) {
+            decoder = decoders.get(extension);
+        }
+        return new ReadAheadInputStream(decoder.decode(file));
+    }
+
+    /**
+     * a stream that is filled ahead with blocks of bytes from a source stream by a separate thread
+     */
+    private static class ReadAheadInputStream extends InputStream {
+        private static final byte[] END = new byte[0];
+
+        private final InputStream source;
+        private final BlockingQueue<byte[]> blocks = new ArrayBlockingQueue<>(READ_AHEAD_BLOCKS);
+        private final Future<?> reader;
+        private volatile Throwable failure;
+        private byte[] block = new byte[0];
+        private int position = 0;
+
+        ReadAheadInputStream(InputStream source) {
+            this.source = source;
+            this.reader = decompressors.submit(this::readAhead);
+        }
+
+        private void readAhead() {
+            boolean closed = false;
+            try {
+                while (true) {
+                    byte[] buffer = new byte[BLOCK_SIZE];
+                    int length = this.source.readNBytes(buffer, 0, BLOCK_SIZE);
+                    if (length > 0) this.blocks.put(length == BLOCK_SIZE ? buffer : Arrays.copyOf(buffer, length));
+                    if (length < BLOCK_SIZE) break;
+                }
+            } catch (InterruptedException e) {
+                closed = true;
+            } catch (Throwable e) {
+                // also runtime failures of a decoder, or of an inflater that has been closed underneath
+                this.failure = e;
+            } finally {
+                // always signal the end, such that the consumer never waits forever
+                //  but never block on a full queue after the stream has been closed
+                try {
+                    if (closed) this.blocks.offer(END);
+                    else this.blocks.put(END);
+                } catch (InterruptedException e) {
+                    // the stream has been closed
+                }
+            }
+        }
+
+        // makes the next block available, returns false at the end of the stream
+        private boolean nextBlock() throws IOException {
+            while (this.position == this.block.length) {
+                if (this.block == END) return false;
+                try {
+                    this.block = this.blocks.take();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new InterruptedIOException("Interrupted while decompressing");
+                }
+                this.position = 0;
+                if (this.block == END) {
+                    Throwable failure = this.failure;
+                    if (failure instanceof IOException) throw (IOException) failure;
+                    if (failure != null) throw new IOException("Decompression failed", failure);
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        @Override
+        public int read() throws IOException {
+            if (!nextBlock()) return -1;
+            return this.block[this.position++] & 0xFF;
+        }
+
+        @Override
+        public int read(byte[] bytes, int offset, int length) throws IOException {
+            if (length == 0) return 0;
+            if (!nextBlock()) return -1;
+            int n = Math.min(length, this.block.length - this.position);
+            System.arraycopy(this.block, this.position, bytes, offset, n);
+            this.position += n;
+            return n;
+        }
+
+        @Override
+        public void close() throws IOException {
+            this.reader.cancel(true);
+            this.source.close();
+        }
+    }
+}
@@ -0,0 +1,153 @@
+package models;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.time.format.DateTimeFormatter;
+import java.util.Arrays;
+import java.util.Locale;
+import java.util.Random;
+
+/**
+ * Generates synthetic vaults for scale testing, in the layout and text formats of the resource vault:
+ *      root/products.txt                               with lines 'barcode, title, price'
+ *      root/purchases/yyyyMMdd/city/store.txt          with lines 'barcode, count'
+ * The popularity of the products follows a Zipf distribution: the product of rank r is purchased
+ * with a probability proportional to 1 / r^exponent, like the sales of real supermarkets.
+ * The output is fully determined by the seed and the dimensions, every file has its own random stream
+ * such that the content of a file does not depend on the other files.
+ */
+public class VaultGenerator {
+
+    public static final double DEFAULT_ZIPF_EXPONENT = 1.0;
+    private static final long FIRST_BARCODE = 8700000000000L;
+    private static final int MAX_COUNT_PER_LINE = 20;
+
+    private final long seed;
+    private final int numDays;
+    private final int numCities;
+    private final int numStoresPerCity;
+    private final int numProducts;
+    private final int numLinesPerFile;
+    private final long[] barcodesByRank;        // the barcodes of the products, most popular first
+    private final double[] cumulativeProbabilities;  // cumulativeProbabilities[r] = P(rank <= r)
+
+    public VaultGenerator(long seed, int numDays, int numCities, int numStoresPerCity, int numProducts, int numLinesPerFile) {
+        this(seed, numDays, numCities, numStoresPerCity, numProducts, numLinesPerFile, DEFAULT_ZIPF_EXPONENT);
+    }
+
+    public VaultGenerator(long seed, int numDays, int numCities, int numStoresPerCity, int numProducts, int numLinesPerFile,
+                          double zipfExponent) {
+        if (numDays <= 0 || numCities <= 0 || numStoresPerCity <= 0 || numProducts <= 0 || numLinesPerFile < 0) {
+            // a vault of empty purchase files is allowed, e.g. to test the import of empty files
+            throw new IllegalArgumentException("The days, cities, stores and products of a vault shall be positive, "
+                    + "and its lines per file shall not be negative");
+        }
+        this.seed = seed;
+        this.numDays = numDays;
+        this.numCities = numCities;
+        this.numStoresPerCity = numStoresPerCity;
+        this.numProducts = numProducts;
+        this.numLinesPerFile = numLinesPerFile;
+
+        // assign the popularity ranks to the barcodes in a random order
+        Random random = new Random(seed);
+        this.barcodesByRank = new long[numProducts];
+        for (int i = 0; i < numProducts; i++) {
+            this.barcodesByRank[i] = FIRST_BARCODE + i;
+        }
+        for (int i = numProducts - 1; i > 0; i--) {
+            int j = random.nextInt(i + 1);
+            long barcode = this.barcodesByRank[i];
+            this.barcodesByRank[i] = this.barcodesByRank[j];
+            this.barcodesByRank[j] = barcode;
+        }
+
+        this.cumulativeProbabilities = new double[numProducts];
+        double sum = 0.0;
+        for (int r = 0; r < numProducts; r++) {
+            sum += 1.0 / Math.pow(r + 1, zipfExponent);
+            this.cumulativeProbabilities[r] = sum;
+        }
+        for (int r = 0; r < numProducts; r++) {
+            this.cumulativeProbabilities[r] /= sum;
+        }
+    }
+
+    /**
+     * @param rank  the popularity rank, 0 for the most popular product
+     * @return      the barcode of the product with the given rank
+     */
+    public long getBarcodeOfRank(int rank) {
+        return this.barcodesByRank[rank];
+    }
+
+    public int getNumFiles() {
+        return this.numDays * this.numCities * this.numStoresPerCity;
+    }
+
+    public long getNumLines() {
+        return (long) this.getNumFiles() * this.numLinesPerFile;
+    }
+
+    /**
+     * writes the products file and all purchase files of the vault
+     *
+     * @param root      the folder to write the vault into
+     * @param firstDay  the date of the first date folder
+     */
+    public void generate(Path root, LocalDate firstDay) {
+        try {
+            Files.createDirectories(root);
+            this.writeProducts(root.resolve("products.txt"));
+            int fileNr = 0;
+            for (int day = 0; day < this.numDays; day++) {
+                Path dateFolder = root.resolve("purchases").resolve(firstDay.plusDays(day).format(DateTimeFormatter.BASIC_ISO_DATE));
+                for (int city = 0; city < this.numCities; city++) {
+                    Path cityFolder = dateFolder.resolve(String.format("city%03d", city));
+                    Files.createDirectories(cityFolder);
+                    for (int store = 0; store < this.numStoresPerCity; store++) {
+                        this.writePurchases(cityFolder.resolve(String.format("store%03d.txt", store)), fileNr++);
+                    }
+                }
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not generate a vault in " + root, e);
+        }
+    }
+
+    private void writeProducts(Path filePath) throws IOException {
+        Random random = new Random(this.seed);
+        try (BufferedWriter writer = Files.newBufferedWriter(filePath, StandardCharsets.UTF_8)) {
+            for (int i = 0; i < this.numProducts; i++) {
+                // prices between 0.25 and 20.00 in whole cents
+                double price = (25 + random.nextInt(1976)) / 100.0;
+                writer.write(String.format(Locale.ROOT, "%d, Product %d, %.2f", FIRST_BARCODE + i, i, price));
+                writer.newLine();
+            }
+        }
+    }
+
+    private void writePurchases(Path filePath, int fileNr) throws IOException {
+        // derive an independent stream for every file from the seed
+        Random random = new Random(this.seed * 31 + fileNr + 1);
+        try (BufferedWriter writer = Files.newBufferedWriter(filePath, StandardCharsets.UTF_8)) {
+            for (int line = 0; line < this.numLinesPerFile; line++) {
+                writer.write(Long.toString(this.barcodesByRank[this.sampleRank(random)]));
+                writer.write(", ");
+                writer.write(Integer.toString(1 + random.nextInt(MAX_COUNT_PER_LINE)));
+                writer.newLine();
+            }
+        }
+    }
+
+    // draws a popularity rank from the Zipf distribution by binary search on the cumulative probabilities
+    private int sampleRank(Random random) {
+        int rank = Arrays.binarySearch(this.cumulativeProbabilities, random.nextDouble());
+        return Math.min(rank >= 0 ? rank : -rank - 1, this.numProducts - 1);
+    }
+}
@@ -0,0 +1,102 @@
+package models;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.util.stream.Stream;
+
+/**
+ * Watches a purchases vault for new and changed branch files and merges them into a PurchaseTracker as they appear.
+ * New date and city folders are watched as soon as they are created.
+ * The merges run on a background thread, holding the monitor of the tracker.
+ * The statistics of the tracker, like getTops, showTops and showTotals, hold the same monitor,
+ * such that they never observe a partial merge; only direct iteration of getPurchases needs explicit synchronization.
+ * A merge that fails, e.g. on a file that is still being written, is logged and the watcher keeps running;
+ * the failed file has not been checkpointed, so it is retried on the next event in the vault.
+ */
+public class VaultWatcher implements Closeable {
+    private final PurchaseTracker tracker;
+    private final Path vaultPath;
+    private final WatchService watchService;
+    private final Thread watcherThread;
+
+    public VaultWatcher(PurchaseTracker tracker, String vaultPath) {
+        this.tracker = tracker;
+        this.vaultPath = new File(vaultPath).toPath().toAbsolutePath();
+        try {
+            this.watchService = FileSystems.getDefault().newWatchService();
+            registerRecursively(this.vaultPath);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot watch vault on path: " + vaultPath, e);
+        }
+        this.watcherThread = new Thread(this::watch, "vault-watcher");
+        this.watcherThread.setDaemon(true);
+    }
+
+    /**
+     * merges the files that are in the vault already, and starts watching for new ones
+     */
+    public void start() {
+        this.tracker.mergeNewPurchasesFromDirectory(this.vaultPath.toString());
+        this.watcherThread.start();
+    }
+
+    private void registerRecursively(Path directory) throws IOException {
+        try (Stream<Path> directories = Files.walk(directory)) {
+            for (Path d : (Iterable<Path>) directories.filter(Files::isDirectory)::iterator) {
+                d.register(this.watchService,
+                        StandardWatchEventKinds.ENTRY_CREATE,
+                        StandardWatchEventKinds.ENTRY_MODIFY,
+                        StandardWatchEventKinds.ENTRY_DELETE);
+            }
+        }
+    }
+
+    private void watch() {
+        try {
+            while (true) {
+                WatchKey key = this.watchService.take();
+                Path directory = (Path) key.watchable();
+                for (WatchEvent<?> event : key.pollEvents()) {
+                    if (event.kind() == StandardWatchEventKinds.ENTRY_CREATE) {
+                        Path created = directory.resolve((Path) event.context());
+                        if (Files.isDirectory(created)) this.tryRegisterRecursively(created);
+                    }
+                }
+                key.reset();
+                try {
+                    // the checkpoint of the tracker limits the merge to the files that are new or have changed
+                    this.tracker.mergeNewPurchasesFromDirectory(this.vaultPath.toString());
+                } catch (RuntimeException e) {
+                    System.err.printf("Failed to merge purchases from %s, retrying on the next change: %s\n", this.vaultPath, e);
+                }
+            }
+        } catch (InterruptedException | ClosedWatchServiceException e) {
+            // the watcher has been closed
+        }
+    }
+
+    // registers a new folder, or logs why it cannot be watched; its files are still merged with their parent folder
+    private void tryRegisterRecursively(Path directory) {
+        try {
+            registerRecursively(directory);
+        } catch (IOException | UncheckedIOException e) {
+            System.err.printf("Cannot watch folder %s: %s\n", directory, e);
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        this.watchService.close();
+        this.watcherThread.interrupt();
+    }
+}
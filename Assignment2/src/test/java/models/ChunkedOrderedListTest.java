@@ -0,0 +1,95 @@
+package models;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ChunkedOrderedListTest {
+    ChunkedOrderedList<Product> products;
+    List<Product> expected;
+    Random random;
+
+    @BeforeEach
+    private void setup() {
+        // small chunks to exercise splits and joins
+        products = new ChunkedOrderedList<>(Comparator.comparing(Product::getBarcode), 8);
+        expected = new ArrayList<>();
+        random = new Random(2021L);
+        for (int i = 0; i < 500; i++) {
+            Product product = new Product(random.nextInt(1000), "product" + i, random.nextInt(1000) / 100.0);
+            products.add(product);
+            expected.add(product);
+        }
+        expected.sort(Comparator.comparing(Product::getBarcode));
+    }
+
+    @Test
+    public void staysSortedAfterInsertsAndRemovals() {
+        assertEquals(expected, products);
+        // the chunks have grown from 8 to 32 items, sqrt(500) <= 32, and have been split along the way
+        assertEquals(32, products.getChunkCapacity());
+        assertTrue(products.getNumChunks() > 500 / 32);
+
+        for (int i = 0; i < 450; i++) {
+            Product removed = products.remove(random.nextInt(products.size()));
+            expected.remove(removed);
+        }
+        assertEquals(expected, products);
+        for (int i = 1; i < products.size(); i++) {
+            assertTrue(products.get(i - 1).getBarcode() <= products.get(i).getBarcode());
+        }
+        assertTrue(products.getNumChunks() < 50 / 2);
+    }
+
+    @Test
+    public void searchAndMergeNeedNoLinearFallback() {
+        for (Product product : expected) {
+            assertEquals(product.getBarcode(), products.get(products.indexOf(product)).getBarcode());
+        }
+        assertEquals(-1, products.indexOf(new Product(1000L)));
+
+        Product newProduct = new Product(1234L, "new", 1.00);
+        assertTrue(products.merge(newProduct, (p1, p2) -> p1));
+        assertSame(newProduct, products.get(products.size() - 1));
+        assertFalse(products.merge(new Product(1234L, "", 2.00), (p1, p2) -> { p2.setPrice(p1.getPrice() + p2.getPrice()); return p2; }));
+        assertEquals(3.00, products.get(products.size() - 1).getPrice());
+    }
+
+    @Test
+    public void boundsAndAggregates() {
+        Aggregate<Product> prices = products.registerAggregate("prices", Product::getPrice);
+        assertEquals(expected.stream().mapToDouble(Product::getPrice).sum(), prices.getSum(), 0.000001);
+
+        long inRange = expected.stream().filter(p -> p.getBarcode() >= 100 && p.getBarcode() < 200).count();
+        assertEquals(inRange, products.rangeView(new Product(100L), new Product(200L)).size());
+
+        products.removeIf(p -> p.getBarcode() < 500);
+        expected.removeIf(p -> p.getBarcode() < 500);
+        assertEquals(expected, products);
+        assertEquals(expected.stream().mapToDouble(Product::getPrice).sum(), prices.getSum(), 0.000001);
+        assertThrows(UnsupportedOperationException.class, () -> products.add(0, new Product(1L)));
+        assertThrows(IllegalArgumentException.class, () -> products.set(0, new Product(999999L)));
+    }
+
+    @Test
+    public void chunksGrowWithTheSquareRootOfTheSize() {
+        ChunkedOrderedList<Long> numbers = new ChunkedOrderedList<>(Comparator.naturalOrder(), 8);
+        int n = 200000;
+        for (int i = 0; i < n; i++) {
+            numbers.add((long) random.nextInt());
+        }
+        double sqrtN = Math.sqrt(n);
+        assertTrue(numbers.getChunkCapacity() >= sqrtN && numbers.getChunkCapacity() < 2 * sqrtN);
+        // chunks are at least half full after inserts, so there are at most 2 sqrt(n) of them
+        assertTrue(numbers.getNumChunks() <= 2 * sqrtN);
+        for (int i = 1; i < n; i += 997) {
+            assertTrue(numbers.get(i - 1) <= numbers.get(i));
+        }
+    }
+}
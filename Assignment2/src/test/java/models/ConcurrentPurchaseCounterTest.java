@@ -0,0 +1,87 @@
+package models;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ConcurrentPurchaseCounterTest {
+
+    PurchaseTracker purchaseTracker;
+    ConcurrentPurchaseCounter counter;
+
+    @BeforeEach
+    private void setup() {
+        purchaseTracker = new PurchaseTracker();
+        purchaseTracker.importProductsFromVault("/products.txt");
+        counter = new ConcurrentPurchaseCounter();
+    }
+
+    @Test
+    public void countsEventsFromManyThreads() throws InterruptedException {
+        List<Product> products = purchaseTracker.getProducts();
+        List<Thread> checkouts = new ArrayList<>();
+        for (int t = 0; t < 8; t++) {
+            Thread checkout = new Thread(() -> {
+                for (int i = 0; i < 10000; i++) {
+                    counter.record(products.get(i % products.size()).getBarcode(), 1);
+                }
+            });
+            checkouts.add(checkout);
+            checkout.start();
+        }
+        for (Thread checkout : checkouts) {
+            checkout.join();
+        }
+
+        long total = 0;
+        for (Product product : products) {
+            total += counter.getCount(product.getBarcode());
+        }
+        assertEquals(80000, total);
+        assertEquals(products.size(), counter.size());
+    }
+
+    @Test
+    public void liveViewReflectsTheSnapshot() {
+        long barcode1 = purchaseTracker.getProducts().get(0).getBarcode();
+        long barcode2 = purchaseTracker.getProducts().get(1).getBarcode();
+        counter.record(barcode1, 5);
+        counter.record(barcode2, 3);
+        counter.record(barcode1, 2);
+        counter.record(1L, 100);    // unknown barcode
+
+        PurchaseTracker view = purchaseTracker.liveView(counter);
+        counter.record(barcode2, 10);
+
+        assertEquals(2, view.getPurchases().size());
+        assertEquals(10, view.getTotalVolume(), 0.000001);
+        assertEquals(7, view.getTops(1, Comparator.comparing(Purchase::getCount).reversed()).get(0).getCount());
+        assertEquals(0, purchaseTracker.getPurchases().size());
+        assertEquals(13, counter.getCount(barcode2));
+    }
+
+    @Test
+    public void snapshotFailsOnCountsBeyondTheIntRange() {
+        long barcode1 = purchaseTracker.getProducts().get(0).getBarcode();
+        long barcode2 = purchaseTracker.getProducts().get(1).getBarcode();
+        counter.record(barcode2, 3);
+        counter.record(barcode1, Integer.MAX_VALUE);
+        OrderedList<Purchase> snapshot = counter.snapshot(purchaseTracker.getProducts(),
+                new OrderedArrayList<>(Comparator.comparing(Purchase::getBarcode)));
+        assertEquals(2, snapshot.size());
+        assertEquals(Math.min(barcode1, barcode2), snapshot.get(0).getBarcode());
+        assertEquals(Integer.MAX_VALUE, snapshot.get(snapshot.indexOf(new Purchase(new Product(barcode1), 0))).getCount());
+        assertEquals(3, snapshot.get(snapshot.indexOf(new Purchase(new Product(barcode2), 0))).getCount());
+
+        counter.record(barcode1, 10);
+        assertEquals(Integer.MAX_VALUE + 10L, counter.getCount(barcode1));
+        ArithmeticException overflow = assertThrows(ArithmeticException.class, () -> counter.snapshot(purchaseTracker.getProducts(),
+                new OrderedArrayList<>(Comparator.comparing(Purchase::getBarcode))));
+        assertTrue(overflow.getMessage().contains(Long.toString(barcode1)));
+    }
+}
@@ -0,0 +1,71 @@
+package models;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class HeavyHitterSketchTest {
+
+    // a skewed stream in which barcode i is purchased about 1/(i+1) times as often as barcode 0
+    private Map<Long, Long> offerSkewedStream(HeavyHitterSketch sketch, long seed, int nEvents) {
+        Random random = new Random(seed);
+        Map<Long, Long> trueCounts = new HashMap<>();
+        for (int e = 0; e < nEvents; e++) {
+            long barcode = (long) Math.floor(Math.pow(1000, random.nextDouble())) - 1;
+            int count = 1 + random.nextInt(3);
+            sketch.offer(barcode, count);
+            trueCounts.merge(barcode, (long) count, Long::sum);
+        }
+        return trueCounts;
+    }
+
+    @Test
+    public void estimatesStayWithinTheErrorBounds() {
+        HeavyHitterSketch sketch = new HeavyHitterSketch(50);
+        Map<Long, Long> trueCounts = offerSkewedStream(sketch, 1L, 100000);
+
+        for (HeavyHitterSketch.Entry entry : sketch.topK(50)) {
+            long trueCount = trueCounts.get(entry.getBarcode());
+            assertTrue(entry.getCount() >= trueCount);
+            assertTrue(entry.getGuaranteedCount() <= trueCount);
+            assertTrue(entry.getError() <= sketch.getErrorBound());
+        }
+        List<HeavyHitterSketch.Entry> tops = sketch.topK(3);
+        assertEquals(0L, tops.get(0).getBarcode());
+        assertEquals(1L, tops.get(1).getBarcode());
+    }
+
+    @Test
+    public void mergedSketchesKeepTheHeavyHitters() {
+        HeavyHitterSketch branch1 = new HeavyHitterSketch(50);
+        HeavyHitterSketch branch2 = new HeavyHitterSketch(50);
+        Map<Long, Long> trueCounts = offerSkewedStream(branch1, 2L, 50000);
+        offerSkewedStream(branch2, 3L, 50000).forEach((barcode, count) -> trueCounts.merge(barcode, count, Long::sum));
+
+        branch1.merge(branch2);
+        assertEquals(trueCounts.values().stream().mapToLong(Long::longValue).sum(), branch1.getTotalCount());
+        for (HeavyHitterSketch.Entry entry : branch1.topK(10)) {
+            long trueCount = trueCounts.get(entry.getBarcode());
+            assertTrue(entry.getCount() >= trueCount);
+            assertTrue(entry.getGuaranteedCount() <= trueCount);
+        }
+        assertEquals(0L, branch1.topK(1).get(0).getBarcode());
+    }
+
+    @Test
+    public void estimatesBeyondTheIntRangeAreShown() {
+        HeavyHitterSketch sketch = new HeavyHitterSketch(50);
+        sketch.offer(8712100516382L, 3000000000L);
+        sketch.offer(42L, 1);
+        List<Product> products = List.of(new Product(8712100516382L, "Calvé Pindakaas 650g", 4.25));
+
+        assertEquals("8712100516382/Calvé Pindakaas 650g/3000000000/12750000000.00 (+/- 0)",
+                PurchaseTracker.formatApproximate(sketch.topK(1).get(0), products));
+        assertEquals("42/?/1 (+/- 0)", PurchaseTracker.formatApproximate(sketch.topK(2).get(1), products));
+    }
+}
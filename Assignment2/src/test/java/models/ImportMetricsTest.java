@@ -0,0 +1,104 @@
+package models;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ImportMetricsTest {
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    public void importsAreInstrumented() throws IOException {
+        Files.createDirectories(tempDir.resolve("20211003"));
+        Files.write(tempDir.resolve("20211003").resolve("dam.txt"), List.of(
+                "8712100516382, 10",
+                "not a barcode, 3",
+                "1234",
+                "1234, 5",
+                "8718907136068, 2"));
+
+        PurchaseTracker purchaseTracker = new PurchaseTracker();
+        List<ImportListener.Stage> stages = new ArrayList<>();
+        purchaseTracker.addImportListener(new ImportListener() {
+            public void fileImported(String filePath, long numBytes, long numLines, long numParseFailures, long numUnknownBarcodes) {
+            }
+            public void stageCompleted(Stage stage, long nanos) {
+                stages.add(stage);
+            }
+        });
+        purchaseTracker.importProductsFromVault("/products.txt");
+        purchaseTracker.mergeNewPurchasesFromDirectory(tempDir.toString());
+
+        ImportMetrics metrics = purchaseTracker.getImportMetrics();
+        assertEquals(1, metrics.getNumFiles());
+        assertEquals(5, metrics.getNumLines());
+        assertEquals(Files.size(tempDir.resolve("20211003").resolve("dam.txt")), metrics.getNumBytes());
+        assertEquals(2, metrics.getNumParseFailures());
+        assertEquals(1, metrics.getNumUnknownBarcodes());
+        assertTrue(metrics.getLinesPerSecond() > 0);
+        assertEquals(metrics.getLinesPerSecond(), metrics.getRecentLinesPerSecond(), 0.000001);
+        assertEquals(12, purchaseTracker.getTotalVolume(), 0.000001);
+        assertTrue(stages.containsAll(List.of(ImportListener.Stage.values())));
+
+        metrics.reset();
+        assertEquals(0, metrics.getNumLines());
+    }
+
+    @Test
+    public void ratesAreBasedOnWallClockTime() {
+        ImportMetrics metrics = new ImportMetrics();
+        // overlapping stages of a pipelined import add up to more than its wall-clock time
+        metrics.fileImported("a.txt", 100, 1000, 0, 0);
+        metrics.stageCompleted(ImportListener.Stage.PARSE, 2000000000L);
+        metrics.stageCompleted(ImportListener.Stage.MERGE, 2000000000L);
+        metrics.importCompleted(1000000000L);
+        assertEquals(1000, metrics.getImportMillis());
+        assertEquals(1000.0, metrics.getLinesPerSecond(), 0.000001);
+        assertEquals(1000.0, metrics.getRecentLinesPerSecond(), 0.000001);
+
+        // a slow import drops out of the recent rate after NUM_RECENT_IMPORTS faster ones
+        for (int i = 0; i < ImportMetrics.NUM_RECENT_IMPORTS; i++) {
+            metrics.fileImported("b.txt", 100, 4000, 0, 0);
+            metrics.importCompleted(1000000000L);
+        }
+        assertEquals(4000.0, metrics.getRecentLinesPerSecond(), 0.000001);
+        assertEquals(41000.0 / 11, metrics.getLinesPerSecond(), 0.000001);
+
+        metrics.reset();
+        assertEquals(0.0, metrics.getRecentLinesPerSecond());
+
+        // the lines of an import in progress at the reset do not count towards the next import
+        metrics.fileImported("c.txt", 100, 5000, 0, 0);
+        metrics.reset();
+        metrics.fileImported("d.txt", 100, 2000, 0, 0);
+        metrics.importCompleted(1000000000L);
+        assertEquals(2000.0, metrics.getRecentLinesPerSecond(), 0.000001);
+    }
+
+    @Test
+    public void metricsAreExposedThroughJmx() throws Exception {
+        PurchaseTracker purchaseTracker = new PurchaseTracker();
+        purchaseTracker.importProductsFromVault("/products.txt");
+        purchaseTracker.getImportMetrics().registerMBean("test");
+        purchaseTracker.importPurchasesFromVault("/purchases");
+
+        MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+        ObjectName name = new ObjectName("models:type=ImportMetrics,name=\"test\"");
+        assertEquals(14L, server.getAttribute(name, "NumFiles"));
+        assertEquals(0L, server.getAttribute(name, "NumParseFailures"));
+        assertTrue((Double) server.getAttribute(name, "RecentLinesPerSecond") > 0);
+        server.unregisterMBean(name);
+    }
+}
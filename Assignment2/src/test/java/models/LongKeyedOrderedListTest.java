@@ -0,0 +1,151 @@
+package models;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class LongKeyedOrderedListTest {
+    LongKeyedOrderedList<Product> products;
+    Product product1, product2, product3, product4, product5, product6, product7;
+
+    @BeforeEach
+    private void setup(){
+        products = new LongKeyedOrderedList<>(Product::getBarcode);
+        product1 = new Product(5L, "food", 15.00);
+        product2 = new Product(4L, "food2", 12.50);
+        product3 = new Product(3L, "food3", 6.00);
+        product4 = new Product(2L, "food4", 2.00);
+        product5 = new Product(1L, "food5", 20.00);
+        product6 = new Product(10L, "food6", 10.00);
+        product7 = new Product(11L, "food7", 7.00);
+        products.addAll(List.of(product1,product2,product3,product4,product5));
+    }
+
+    @Test
+    public void sortingOrdersKeysAndItemsTogether(){
+        products.sort();
+        assertEquals(5, products.getnSorted());
+        for (int i = 0; i < products.size(); i++) {
+            assertEquals(i + 1L, products.getKey(i));
+            assertEquals(i + 1L, products.get(i).getBarcode());
+        }
+    }
+
+    @Test
+    public void addAndRemoveKeepSortedPartOfListCorrect(){
+        products.sort();
+        products.add(3, product7);
+        assertEquals(3, products.getnSorted());
+        assertEquals(3, products.indexOf(product7));
+
+        // removing from the unsorted section does not affect the sorted section
+        products.remove(product7);
+        assertEquals(3, products.getnSorted());
+
+        // removing from the sorted section keeps the other sorted items in order
+        products.remove(product4);
+        assertEquals(2, products.getnSorted());
+        for (Product p : products) {
+            assertSame(p, products.get(products.indexOf(p)));
+        }
+    }
+
+    @Test
+    public void indexOfKeySearchesSortedAndUnsortedSections(){
+        products.sort();
+        products.add(product6);
+        assertEquals(4, products.indexOfKey(5L));
+        assertEquals(0, products.indexOfKey(1L));
+        assertEquals(5, products.indexOfKey(10L));
+        assertEquals(-1, products.indexOfKey(11L));
+        assertEquals(-1, products.indexOfByBinarySearch(product7));
+    }
+
+    @Test
+    public void mergeCombinesMatchesAndAddsNewItems(){
+        products.sort();
+        assertFalse(products.merge(new Product(3L, "", 1.00),
+                (p1, p2) -> new Product(p2.getBarcode(), p2.getTitle(), p1.getPrice() + p2.getPrice())));
+        assertEquals(7.00, products.get(2).getPrice());
+        assertTrue(products.merge(product6, (p1, p2) -> p1));
+        assertEquals(6, products.size());
+        assertSame(product6, products.get(products.indexOfKey(10L)));
+    }
+
+    @Test
+    public void rangeViewOnKeys(){
+        products.sort();
+        products.add(product6);
+        products.add(product7);
+        products.sort();
+        assertEquals(1, products.lowerBound(2L));
+        assertEquals(2, products.upperBound(2L));
+        assertEquals(List.of(product3, product2, product1, product6), products.rangeView(3L, 11L));
+        assertEquals(List.of(product6, product7), products.rangeView(new Product(6L), new Product(100L)));
+        assertEquals(43.50, products.aggregateRange(3L, 11L, Product::getPrice), 0.000001);
+        assertEquals(0, products.rangeView(6L, 9L).size());
+    }
+
+    @Test
+    public void indexOfKeyFindsUniformAndSkewedKeys(){
+        LongKeyedOrderedList<Product> uniform = new LongKeyedOrderedList<>(Product::getBarcode);
+        Random random = new Random(2021L);
+        for (int i = 0; i < 10000; i++) {
+            uniform.add(new Product(8700000000000L + 2L * random.nextInt(500000000)));
+        }
+        uniform.sort();
+        for (int i = 0; i < uniform.size(); i++) {
+            assertEquals(uniform.getKey(i), uniform.getKey(uniform.indexOfKey(uniform.getKey(i))));
+            // odd keys are never in the list
+            assertEquals(-1, uniform.indexOfKey(uniform.getKey(i) + 1));
+        }
+
+        // exponentially growing keys defeat linear interpolation
+        LongKeyedOrderedList<Product> skewed = new LongKeyedOrderedList<>(Product::getBarcode);
+        for (int i = 0; i < 63; i++) {
+            skewed.add(new Product(1L << i));
+        }
+        skewed.sort();
+        for (int i = 0; i < 63; i++) {
+            assertEquals(i, skewed.indexOfKey(1L << i));
+        }
+        assertEquals(-1, skewed.indexOfKey(3L));
+        assertEquals(-1, skewed.indexOfKey(Long.MIN_VALUE));
+        skewed.add(new Product(Long.MIN_VALUE));
+        skewed.sort();
+        assertEquals(0, skewed.indexOfKey(Long.MIN_VALUE));
+        assertEquals(63, skewed.indexOfKey(1L << 62));
+    }
+
+    @Test
+    public void indexOfKeyCountsItsProbes(){
+        LongKeyedOrderedList<Product> uniform = new LongKeyedOrderedList<>(Product::getBarcode);
+        Random random = new Random(2021L);
+        for (int i = 0; i < 100000; i++) {
+            uniform.add(new Product(8700000000000L + random.nextInt(1000000000)));
+        }
+        uniform.sort();
+        assertEquals(0, uniform.getProbeCount());
+        for (int i = 0; i < 1000; i++) {
+            uniform.indexOfKey(uniform.getKey(random.nextInt(uniform.size())));
+        }
+        // interpolation takes far fewer probes than the 17 of a binary search on uniform keys
+        assertTrue(uniform.getProbeCount() > 0);
+        assertTrue(uniform.getProbeCount() < 1000 * 17 / 2);
+
+        LongKeyedOrderedList<Product> skewed = new LongKeyedOrderedList<>(Product::getBarcode);
+        for (int i = 0; i < 62; i++) {
+            skewed.add(new Product(1L << i));
+        }
+        skewed.sort();
+        for (int i = 0; i < 62; i++) {
+            skewed.resetProbeCount();
+            assertEquals(i, skewed.indexOfKey(1L << i));
+            assertTrue(skewed.getProbeCount() <= 2 * 6 + 2);
+        }
+    }
+}
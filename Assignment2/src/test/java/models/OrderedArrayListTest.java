@@ -5,6 +5,7 @@ import org.junit.jupiter.api.Test;
 
 import java.util.Comparator;
 import java.util.List;
+import java.util.Random;
 
 import static org.junit.jupiter.api.Assertions.*;
 
@@ -101,4 +102,95 @@ public class OrderedArrayListTest {
         //Returns -1 if index is not found
         assertEquals(-1, products.indexOfByRecursiveBinarySearch(product6,0,0));
     }
+
+    @Test
+    public void mergeBeyondTheLargestItemTest(){
+        products.sort();
+        // the binary search of merge shall stay within the sorted section
+        assertTrue(products.merge(product7, (p1, p2) -> p1));
+        assertEquals(6, products.size());
+        products.sort();
+        assertFalse(products.merge(new Product(11L, "food7", 7.00), (p1, p2) -> p2));
+        assertEquals(product7, products.get(5));
+    }
+
+    @Test
+    public void interpolationSearchFindsAllItemsTest(){
+        OrderedArrayList<Product> keyedProducts = new OrderedArrayList<>(Product::getBarcode);
+        keyedProducts.addAll(products);
+        keyedProducts.sort();
+        for (Product p: keyedProducts) {
+            assertEquals(p, keyedProducts.get(keyedProducts.indexOfByInterpolationSearch(p)));
+        }
+        //Returns -1 if index is not found, also beyond the key bounds
+        assertEquals(-1, keyedProducts.indexOfByInterpolationSearch(product6));
+        assertEquals(-1, keyedProducts.indexOfByInterpolationSearch(new Product(0L)));
+        //Finds items in the unsorted section
+        keyedProducts.add(product7);
+        assertEquals(5, keyedProducts.indexOf(product7));
+    }
+
+    @Test
+    public void interpolationSearchNeedsFewerProbesOnUniformKeysTest(){
+        OrderedArrayList<Product> keyedProducts = new OrderedArrayList<>(Product::getBarcode);
+        Random random = new Random(2021L);
+        for (int i = 0; i < 100000; i++) {
+            keyedProducts.add(new Product(8700000000000L + random.nextInt(1000000000)));
+        }
+        keyedProducts.sort();
+
+        for (int i = 0; i < 1000; i++) {
+            keyedProducts.indexOfByIterativeBinarySearch(keyedProducts.get(random.nextInt(keyedProducts.size())));
+        }
+        long binaryProbes = keyedProducts.getProbeCount();
+        keyedProducts.resetProbeCount();
+        for (int i = 0; i < 1000; i++) {
+            Product p = keyedProducts.get(random.nextInt(keyedProducts.size()));
+            assertEquals(p.getBarcode(), keyedProducts.get(keyedProducts.indexOfByInterpolationSearch(p)).getBarcode());
+        }
+        long interpolationProbes = keyedProducts.getProbeCount();
+        assertTrue(interpolationProbes * 2 < binaryProbes);
+    }
+
+    @Test
+    public void interpolationSearchFallsBackOnSkewedKeysTest(){
+        OrderedArrayList<Product> keyedProducts = new OrderedArrayList<>(Product::getBarcode);
+        // exponentially growing keys defeat linear interpolation
+        for (int i = 0; i < 62; i++) {
+            keyedProducts.add(new Product(1L << i));
+        }
+        keyedProducts.sort();
+        for (int i = 0; i < 62; i++) {
+            keyedProducts.resetProbeCount();
+            assertEquals(i, keyedProducts.indexOfByInterpolationSearch(new Product(1L << i)));
+            assertTrue(keyedProducts.getProbeCount() <= 2 * 6 + 2);
+        }
+    }
+
+    @Test
+    public void resortingByAnotherOrdeningDropsTheInterpolationSearchTest(){
+        OrderedArrayList<Product> keyedProducts = new OrderedArrayList<>(Product::getBarcode);
+        keyedProducts.addAll(products);
+        keyedProducts.sort();
+        Comparator<Product> byPrice = Comparator.comparing(Product::getPrice);
+        keyedProducts.sort(byPrice);
+        // the barcodes no longer agree with the ordening, so only the binary search by price finds all items
+        for (Product p: keyedProducts) {
+            assertEquals(p, keyedProducts.get(keyedProducts.indexOf(p)));
+        }
+    }
+
+    @Test
+    public void rangeViewSlicesTheSortedSectionTest(){
+        products.sort();
+        assertEquals(1, products.lowerBound(product4));
+        assertEquals(2, products.upperBound(product4));
+        assertEquals(5, products.lowerBound(product6));
+
+        List<Product> range = products.rangeView(new Product(2L), new Product(5L));
+        assertEquals(List.of(product4, product3, product2), range);
+        assertEquals(20.50, products.aggregateRange(new Product(2L), new Product(5L), Product::getPrice), 0.000001);
+        assertEquals(0, products.rangeView(new Product(6L), new Product(9L)).size());
+        assertThrows(UnsupportedOperationException.class, () -> range.add(product6));
+    }
 }
@@ -0,0 +1,76 @@
+package models;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ProductCatalogTest {
+
+    @TempDir
+    Path tempDir;
+
+    String productsPath;
+
+    @BeforeEach
+    private void setup() {
+        productsPath = ProductCatalogTest.class.getResource("/products.txt").getPath();
+    }
+
+    @Test
+    public void readersNeverSeePartialCatalogs() throws InterruptedException {
+        ProductCatalog catalog = new ProductCatalog();
+        catalog.reload(productsPath);
+
+        AtomicBoolean reloading = new AtomicBoolean(true);
+        AtomicInteger partialReads = new AtomicInteger();
+        Thread reader = new Thread(() -> {
+            while (reloading.get()) {
+                if (catalog.getProducts().size() != 61) partialReads.incrementAndGet();
+            }
+        });
+        reader.start();
+        for (int i = 0; i < 50; i++) {
+            catalog.reload(productsPath);
+        }
+        reloading.set(false);
+        reader.join();
+
+        assertEquals(0, partialReads.get());
+        assertEquals(51, catalog.getVersion());
+    }
+
+    @Test
+    public void priceUpdatesApplyToAccumulatedPurchases() throws IOException {
+        PurchaseTracker purchaseTracker = new PurchaseTracker();
+        purchaseTracker.importProductsFromFile(productsPath);
+        purchaseTracker.importPurchasesFromVault("/purchases");
+        double originalRevenue = purchaseTracker.getTotalRevenue();
+        List<Product> originalProducts = purchaseTracker.getProducts();
+
+        // double all prices
+        List<String> doubledPrices = Files.readAllLines(Path.of(productsPath), StandardCharsets.UTF_8).stream()
+                .map(Product::fromLine)
+                .map(p -> p.getBarcode() + ", " + p.getTitle() + ", " + 2 * p.getPrice())
+                .collect(Collectors.toList());
+        Path newProductsPath = tempDir.resolve("products.txt");
+        Files.write(newProductsPath, doubledPrices, StandardCharsets.UTF_8);
+        purchaseTracker.importProductsFromFile(newProductsPath.toString());
+
+        assertEquals(2 * originalRevenue, purchaseTracker.getTotalRevenue(), 0.001);
+        assertEquals(16730, purchaseTracker.getTotalVolume(), 0.000001);
+        // the earlier version of the catalog is left untouched
+        assertEquals(61, originalProducts.size());
+        assertNotSame(originalProducts, purchaseTracker.getProducts());
+    }
+}
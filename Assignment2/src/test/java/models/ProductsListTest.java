@@ -3,7 +3,10 @@ package models;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 
+import java.util.ArrayList;
 import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertSame;
@@ -95,4 +98,60 @@ public class ProductsListTest {
             assertEquals(index, products.indexOf(products.get(index)));
         }
     }
+
+    @Test
+    public void topsRanksWithoutDisturbingTheList() {
+        products.sort();
+        List<Product> byPrice = new ArrayList<>(products);
+        byPrice.sort(Comparator.comparing(Product::getPrice).reversed());
+
+        List<Product> tops = products.tops(5, Comparator.comparing(Product::getPrice).reversed());
+        assertEquals(byPrice.subList(0, 5), tops);
+        assertEquals(111111111111110L, products.get(0).getBarcode());
+
+        assertEquals(byPrice, products.tops(100, Comparator.comparing(Product::getPrice).reversed()));
+        assertEquals(0, products.tops(0, Comparator.comparing(Product::getPrice)).size());
+    }
+
+    @Test
+    public void topsParallelMergesTheSameRanking() {
+        OrderedList<Product> manyProducts = new LongKeyedOrderedList<>(Product::getBarcode);
+        Random random = new Random(42L);
+        for (int i = 0; i < 50000; i++) {
+            manyProducts.add(new Product(i, "product" + i, random.nextInt(500) / 100.0));
+        }
+        Comparator<Product> byPrice = Comparator.comparing(Product::getPrice).reversed();
+        List<Product> expected = new ArrayList<>(manyProducts);
+        expected.sort(byPrice);
+
+        assertEquals(expected.subList(0, 25), manyProducts.tops(25, byPrice));
+        assertEquals(expected.subList(0, 25), manyProducts.topsParallel(25, byPrice));
+    }
+
+    @Test
+    public void registeredAggregateFollowsAllChanges() {
+        Aggregate<Product> prices = products.registerAggregate("prices", Product::getPrice);
+        assertEquals(12, prices.getCount());
+        assertEquals(34.14, prices.getSum(), 0.000001);
+
+        products.sort();
+        for (int index = 0; index < products.size(); index++) {
+            products.merge(products.get(index), (p1,p2) -> { p1.setPrice(p1.getPrice() + p2.getPrice()); return p1;} );
+        }
+        assertEquals(products.aggregate(Product::getPrice), prices.getSum(), 0.000001);
+
+        double maxPrice = prices.getMax();
+        products.add(product3b);
+        products.remove(product1);
+        products.set(0, product3a);
+        products.removeIf(p -> p.getPrice() == maxPrice);
+        assertEquals(products.aggregate(Product::getPrice), prices.getSum(), 0.000001);
+        assertEquals(products.size(), prices.getCount());
+        assertEquals(products.stream().mapToDouble(Product::getPrice).max().getAsDouble(), prices.getMax(), 0.000001);
+        assertEquals(products.stream().mapToDouble(Product::getPrice).min().getAsDouble(), prices.getMin(), 0.000001);
+
+        products.clear();
+        assertEquals(0, prices.getCount());
+        assertEquals(0.0, prices.getSum(), 0.000001);
+    }
 }
@@ -0,0 +1,102 @@
+package models;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class PurchaseCubeTest {
+
+    PurchaseTracker purchaseTracker;
+    PurchaseCube cube;
+
+    @BeforeEach
+    private void setup() {
+        purchaseTracker = new PurchaseTracker();
+        purchaseTracker.importProductsFromVault("/products.txt");
+        purchaseTracker.importPurchasesFromVault("/purchases");
+        cube = purchaseTracker.importPurchaseCubeFromVault("/purchases");
+    }
+
+    @Test
+    public void cubeHoldsAllDimensions() {
+        assertEquals(2, cube.getDates().size());
+        assertTrue(cube.getCities().containsAll(List.of("Amsterdam", "Rotterdam", PurchaseCube.NO_CITY)));
+        assertTrue(cube.getStores().containsAll(List.of(PurchaseCube.storeKey("Rotterdam", "lijnbaan"),
+                PurchaseCube.storeKey(PurchaseCube.NO_CITY, "webshop"), PurchaseCube.storeKey("Rotterdam", "coolsingel"))));
+    }
+
+    @Test
+    public void rollupsAddUpToTheTotals() {
+        double revenue = cube.revenueByCity(null).values().stream().mapToDouble(Double::doubleValue).sum();
+        assertEquals(purchaseTracker.getTotalRevenue(), revenue, 0.001);
+
+        Map<String, Double> revenueOnDay2 = cube.revenueByCity("20211002");
+        assertEquals(0.0, revenueOnDay2.get(PurchaseCube.NO_CITY), 0.000001);
+        Map<String, Double> storeRevenueOnDay2 = cube.revenueByStore("20211002");
+        assertEquals(storeRevenueOnDay2.get(PurchaseCube.storeKey("Rotterdam", "lijnbaan"))
+                        + storeRevenueOnDay2.get(PurchaseCube.storeKey("Rotterdam", "coolsingel")),
+                revenueOnDay2.get("Rotterdam"), 0.000001);
+
+        int volume = cube.purchasesOnDate("20211001").stream().mapToInt(Purchase::getCount).sum()
+                + cube.purchasesOnDate("20211002").stream().mapToInt(Purchase::getCount).sum();
+        assertEquals(16730, volume);
+    }
+
+    @Test
+    public void topProductsAtStore() {
+        List<Purchase> tops = cube.topProductsAtStore("Rotterdam", "lijnbaan", 3, Comparator.comparing(Purchase::getCount).reversed());
+        assertEquals(3, tops.size());
+        assertTrue(tops.get(0).getCount() >= tops.get(1).getCount());
+        int maxAtLijnbaan = cube.purchasesAtStore("Rotterdam", "lijnbaan").stream().mapToInt(Purchase::getCount).max().getAsInt();
+        assertEquals(maxAtLijnbaan, tops.get(0).getCount());
+        assertEquals(0, cube.purchasesAtStore("Rotterdam", "unknown").size());
+    }
+
+    @Test
+    public void sameNamedStoresInDifferentCitiesStayApart() {
+        Product cheese = new Product(8712100516382L, "Kaas", 2.0);
+        PurchaseCube branches = new PurchaseCube();
+        branches.add(cheese, "20211001", "Amsterdam", "centrum", 10);
+        branches.add(cheese, "20211001", "Rotterdam", "centrum", 5);
+
+        assertEquals(Map.of("Amsterdam", 20.0, "Rotterdam", 10.0), branches.revenueByCity(null));
+        assertEquals(2, branches.getStores().size());
+        assertEquals(10, branches.purchasesAtStore("Amsterdam", "centrum").get(0).getCount());
+        assertEquals(5, branches.purchasesAtStore("Rotterdam", "centrum").get(0).getCount());
+    }
+
+    @Test
+    public void countsBeyondTheIntRangeFailLikeTheLiveCounter() {
+        Product cheese = new Product(8712100516382L, "Kaas", 2.0);
+        PurchaseCube branches = new PurchaseCube();
+        branches.add(cheese, "20211001", "Amsterdam", "centrum", Integer.MAX_VALUE);
+        branches.add(cheese, "20211002", "Amsterdam", "centrum", 1);
+
+        assertEquals(Integer.MAX_VALUE, branches.purchasesOnDate("20211001").get(0).getCount());
+        assertEquals(2.0 * Integer.MAX_VALUE + 2.0, branches.revenueByStore(null).get(PurchaseCube.storeKey("Amsterdam", "centrum")));
+        ArithmeticException overflow = assertThrows(ArithmeticException.class,
+                () -> branches.purchasesAtStore("Amsterdam", "centrum"));
+        assertTrue(overflow.getMessage().contains("8712100516382"));
+    }
+
+    @Test
+    public void cubeImportSkipsCorruptLines(@TempDir Path vault) throws IOException {
+        Path store = Files.createDirectories(vault.resolve("20211001").resolve("Amsterdam")).resolve("centrum.txt");
+        long barcode = purchaseTracker.getProducts().get(0).getBarcode();
+        Files.write(store, List.of(barcode + ", 3", "corrupt", barcode + ", many", "8700000000001, 5", barcode + ", 4"));
+
+        PurchaseCube branches = purchaseTracker.importPurchaseCubeFromDirectory(vault.toString());
+        OrderedList<Purchase> purchases = branches.purchasesAtStore("Amsterdam", "centrum");
+        assertEquals(1, purchases.size());
+        assertEquals(7, purchases.get(0).getCount());
+    }
+}
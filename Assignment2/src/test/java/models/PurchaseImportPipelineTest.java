@@ -0,0 +1,120 @@
+package models;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.File;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.function.BinaryOperator;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class PurchaseImportPipelineTest {
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    public void pipelinedImportMatchesSequentialImport() {
+        PurchaseTracker sequential = new PurchaseTracker();
+        sequential.importProductsFromVault("/products.txt");
+        sequential.importPurchasesFromVault("/purchases");
+
+        PurchaseTracker pipelined = new PurchaseTracker();
+        pipelined.setImportMode(PurchaseTracker.ImportMode.PIPELINED);
+        pipelined.importProductsFromVault("/products.txt");
+        pipelined.importPurchasesFromVault("/purchases");
+
+        assertEquals(16730, pipelined.getTotalVolume(), 0.000001);
+        assertEquals(sequential.getTotalRevenue(), pipelined.getTotalRevenue(), 0.001);
+        assertEquals(sequential.getPurchases().size(), pipelined.getPurchases().size());
+        assertEquals(14, pipelined.getCheckpoint().size());
+        assertEquals(sequential.getImportMetrics().getNumLines(), pipelined.getImportMetrics().getNumLines());
+    }
+
+    @Test
+    public void smallBatchesAcrossParsersAreMergedPerFile() throws Exception {
+        new VaultGenerator(11L, 2, 2, 3, 300, 1000).generate(tempDir, LocalDate.of(2021, 10, 1));
+        List<File> files;
+        try (Stream<Path> paths = Files.walk(tempDir.resolve("purchases"))) {
+            files = paths.filter(Files::isRegularFile).map(Path::toFile).collect(Collectors.toList());
+        }
+
+        PurchaseTracker purchaseTracker = new PurchaseTracker();
+        purchaseTracker.importProductsFromFile(tempDir.resolve("products.txt").toString());
+        purchaseTracker.mergeNewPurchasesFromDirectory(tempDir.resolve("purchases").toString());
+
+        OrderedList<Purchase> purchases = new LongKeyedOrderedList<>(Purchase::getBarcode);
+        List<VaultCheckpoint.FileEntry> entries = new ArrayList<>();
+        new PurchaseImportPipeline(3, 7, 2).run(files, purchaseTracker.getProducts(), purchases, (p1, p2) -> {
+            p1.addCount(p2.getCount());
+            return p1;
+        }, new ArrayList<>(), entries::add);
+
+        assertEquals(files.size(), entries.size());
+        assertEquals(purchaseTracker.getTotalVolume(), purchases.stream().mapToInt(Purchase::getCount).sum(), 0.000001);
+        for (VaultCheckpoint.FileEntry entry : entries) {
+            VaultCheckpoint.FileEntry expected = purchaseTracker.getCheckpoint().get(entry.getPath());
+            // the contributions of the 1000 lines are aggregated per product
+            assertTrue(entry.getBarcodes().length <= 300);
+            assertArrayEquals(expected.getBarcodes(), entry.getBarcodes());
+            assertArrayEquals(expected.getCounts(), entry.getCounts());
+            assertEquals(Arrays.stream(expected.getCounts()).sum(), Arrays.stream(entry.getCounts()).sum());
+        }
+        assertEquals(purchaseTracker.getTops(3, Comparator.comparing(Purchase::getCount).reversed()).get(0).getCount(),
+                purchases.stream().mapToInt(Purchase::getCount).max().getAsInt());
+    }
+
+    @Test
+    public void failingMergersAndListenersRetractIncompleteFiles() throws Exception {
+        new VaultGenerator(12L, 2, 2, 3, 300, 1000).generate(tempDir, LocalDate.of(2021, 10, 1));
+        List<File> files;
+        try (Stream<Path> paths = Files.walk(tempDir.resolve("purchases"))) {
+            files = paths.filter(Files::isRegularFile).map(Path::toFile).collect(Collectors.toList());
+        }
+        PurchaseTracker purchaseTracker = new PurchaseTracker();
+        purchaseTracker.importProductsFromFile(tempDir.resolve("products.txt").toString());
+
+        for (int failAfter : new int[] { 10, 2500, 5500 }) {
+            int[] numMerges = { 0 };
+            BinaryOperator<Purchase> failingMerger = (p1, p2) -> {
+                if (++numMerges[0] == failAfter) throw new IllegalStateException("merger failure");
+                p1.addCount(p2.getCount());
+                return p1;
+            };
+            assertMergedOnlyCompletedFiles(files, purchaseTracker.getProducts(), failingMerger, new ArrayList<>());
+        }
+
+        ImportListener failingListener = new ImportListener() {
+            int numFiles = 0;
+            public void fileImported(String filePath, long numBytes, long numLines, long numParseFailures, long numUnknownBarcodes) {
+                if (++numFiles == 3) throw new IllegalStateException("listener failure");
+            }
+            public void stageCompleted(Stage stage, long nanos) {
+            }
+        };
+        assertMergedOnlyCompletedFiles(files, purchaseTracker.getProducts(), (p1, p2) -> {
+            p1.addCount(p2.getCount());
+            return p1;
+        }, List.of(failingListener));
+    }
+
+    private static void assertMergedOnlyCompletedFiles(List<File> files, List<Product> products,
+                                                      BinaryOperator<Purchase> merger, List<ImportListener> listeners) {
+        OrderedList<Purchase> purchases = new LongKeyedOrderedList<>(Purchase::getBarcode);
+        List<VaultCheckpoint.FileEntry> entries = new ArrayList<>();
+        assertThrows(IllegalStateException.class,
+                () -> new PurchaseImportPipeline(2, 100, 2).run(files, products, purchases, merger, listeners, entries::add));
+        assertTrue(entries.size() < files.size());
+        int checkpointedVolume = entries.stream().mapToInt(entry -> Arrays.stream(entry.getCounts()).sum()).sum();
+        assertEquals(checkpointedVolume, purchases.stream().mapToInt(Purchase::getCount).sum());
+    }
+}
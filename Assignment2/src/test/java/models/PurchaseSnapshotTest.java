@@ -0,0 +1,109 @@
+package models;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class PurchaseSnapshotTest {
+
+    @TempDir
+    Path tempDir;
+
+    PurchaseTracker purchaseTracker;
+
+    @BeforeEach
+    private void setup() {
+        purchaseTracker = new PurchaseTracker();
+        purchaseTracker.importProductsFromVault("/products.txt");
+        purchaseTracker.importPurchasesFromVault("/purchases");
+    }
+
+    @Test
+    public void reloadRestoresProductsPurchasesAndTotals() {
+        String snapshotPath = tempDir.resolve("supermarket.snapshot").toString();
+        purchaseTracker.saveSnapshot(snapshotPath);
+
+        PurchaseTracker restarted = new PurchaseTracker();
+        restarted.loadSnapshot(snapshotPath);
+
+        assertEquals(61, restarted.getProducts().size());
+        assertEquals(61, restarted.getPurchases().size());
+        for (Purchase purchase : purchaseTracker.getPurchases()) {
+            Purchase restored = restarted.getPurchases().get(restarted.getPurchases().indexOf(purchase));
+            assertEquals(purchase.toString(), restored.toString());
+        }
+        assertEquals(16730, restarted.getTotalVolume(), 0.000001);
+        assertEquals(purchaseTracker.getTotalRevenue(), restarted.getTotalRevenue(), 0.001);
+    }
+
+    @Test
+    public void incrementalImportAppliesOnTopOfTheSnapshot() {
+        String snapshotPath = tempDir.resolve("supermarket.snapshot").toString();
+        purchaseTracker.saveSnapshot(snapshotPath);
+
+        PurchaseTracker restarted = new PurchaseTracker();
+        restarted.loadSnapshot(snapshotPath);
+        assertEquals(purchaseTracker.getCheckpoint().size(), restarted.getCheckpoint().size());
+        assertEquals(0, restarted.mergeNewPurchasesFromVault("/purchases"));
+        assertEquals(16730, restarted.getTotalVolume(), 0.000001);
+    }
+
+    @Test
+    public void purchasesOfProductsDroppedFromTheCatalogSurviveTheSnapshot() throws Exception {
+        // reload the catalog without its first product, which has been purchased
+        List<String> lines = Files.readAllLines(Paths.get(PurchaseTracker.class.getResource("/products.txt").toURI()));
+        Path reducedProducts = tempDir.resolve("products.txt");
+        Files.write(reducedProducts, lines.subList(1, lines.size()));
+        purchaseTracker.importProductsFromFile(reducedProducts.toString());
+
+        String snapshotPath = tempDir.resolve("supermarket.snapshot").toString();
+        purchaseTracker.saveSnapshot(snapshotPath);
+
+        PurchaseTracker restarted = new PurchaseTracker();
+        restarted.loadSnapshot(snapshotPath);
+        assertEquals(60, restarted.getProducts().size());
+        assertEquals(61, restarted.getPurchases().size());
+        assertEquals(16730, restarted.getTotalVolume(), 0.000001);
+        assertEquals(purchaseTracker.getTotalRevenue(), restarted.getTotalRevenue(), 0.001);
+    }
+
+    @Test
+    public void savingReplacesTheSnapshotWithoutLeavingTemporaryFiles() throws Exception {
+        Path snapshotPath = tempDir.resolve("supermarket.snapshot");
+        Files.write(snapshotPath, new byte[100000]);
+        purchaseTracker.saveSnapshot(snapshotPath.toString());
+        purchaseTracker.saveSnapshot(snapshotPath.toString());
+
+        try (Stream<Path> files = Files.list(tempDir)) {
+            assertEquals(List.of(snapshotPath), files.collect(Collectors.toList()));
+        }
+        PurchaseTracker restarted = new PurchaseTracker();
+        restarted.loadSnapshot(snapshotPath.toString());
+        assertEquals(16730, restarted.getTotalVolume(), 0.000001);
+    }
+
+    @Test
+    public void loadingFailsOnCountsBeyondTheFile() throws Exception {
+        Path snapshotPath = tempDir.resolve("supermarket.snapshot");
+        purchaseTracker.saveSnapshot(snapshotPath.toString());
+        byte[] bytes = Files.readAllBytes(snapshotPath);
+
+        // the number of products follows the magic number and the version
+        Files.write(snapshotPath, ByteBuffer.wrap(bytes.clone()).putInt(8, Integer.MAX_VALUE).array());
+        assertThrows(IllegalArgumentException.class, () -> PurchaseSnapshot.load(snapshotPath));
+        Files.write(snapshotPath, ByteBuffer.wrap(bytes.clone()).putInt(8, -1).array());
+        assertThrows(IllegalArgumentException.class, () -> PurchaseSnapshot.load(snapshotPath));
+        Files.write(snapshotPath, new byte[6]);
+        assertThrows(IllegalArgumentException.class, () -> PurchaseSnapshot.load(snapshotPath));
+    }
+}
@@ -2,6 +2,12 @@ package models;
 
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
 
 import static org.junit.jupiter.api.Assertions.*;
 
@@ -25,4 +31,40 @@ public class PurchaseTrackerTest {
         System.out.println(purchaseTracker.getPurchases().stream().mapToInt(Purchase::getCount).sum());
         assertEquals(16730, purchaseTracker.getPurchases().stream().mapToInt(Purchase::getCount).sum());
     }
+
+    @Test
+    public void totalsAreMaintainedDuringImport() {
+        assertEquals(16730, purchaseTracker.getTotalVolume(), 0.000001);
+        assertEquals(purchaseTracker.getPurchases().stream().mapToDouble(Purchase::getRevenue).sum(),
+                purchaseTracker.getTotalRevenue(), 0.001);
+    }
+
+    @Test
+    public void productsInBarcodeRange() {
+        // all products with GS1 prefix 8718907
+        long from = 8718907000000L;
+        long to = 8718908000000L;
+        List<Product> range = purchaseTracker.getProductsInBarcodeRange(from, to);
+        assertEquals(purchaseTracker.getProducts().stream().filter(p -> p.getBarcode() >= from && p.getBarcode() < to).count(),
+                range.size());
+        assertTrue(range.size() > 0);
+    }
+
+    @Test
+    public void rankingsAreCachedUntilThePurchasesChange(@TempDir Path vault) throws IOException {
+        List<Purchase> worst = purchaseTracker.getTops(5, PurchaseTracker.WORST_VOLUME);
+        assertSame(worst, purchaseTracker.getTops(5, PurchaseTracker.WORST_VOLUME));
+        assertEquals(worst.subList(0, 3), purchaseTracker.getTops(3, PurchaseTracker.WORST_VOLUME));
+        assertEquals(61, purchaseTracker.getTops(100, PurchaseTracker.BEST_REVENUE).size());
+
+        // sell a lot more of the worst selling product
+        Purchase worstPurchase = worst.get(0);
+        Files.write(vault.resolve("extra.txt"), List.of(worstPurchase.getBarcode() + ", 10000"));
+        purchaseTracker.mergeNewPurchasesFromDirectory(vault.toString());
+
+        List<Purchase> newWorst = purchaseTracker.getTops(5, PurchaseTracker.WORST_VOLUME);
+        assertNotSame(worst, newWorst);
+        assertNotEquals(worstPurchase.getBarcode(), newWorst.get(0).getBarcode());
+        assertEquals(worstPurchase.getBarcode(), purchaseTracker.getTops(1, PurchaseTracker.BEST_VOLUME).get(0).getBarcode());
+    }
 }
@@ -0,0 +1,99 @@
+package models;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.Comparator;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class PurchaseWindowTest {
+
+    Product apple;
+    Product pear;
+    PurchaseWindow window;
+    LocalDate monday = LocalDate.of(2021, 10, 4);
+
+    @BeforeEach
+    private void setup() {
+        apple = new Product(1L, "apple", 0.50);
+        pear = new Product(2L, "pear", 2.00);
+        window = new PurchaseWindow(3);
+    }
+
+    @Test
+    public void expiredDaysRollOutOfTheWindow() {
+        assertTrue(window.record(new Purchase(apple, 10), monday));
+        assertTrue(window.record(new Purchase(pear, 1), monday.plusDays(1)));
+        assertTrue(window.record(new Purchase(apple, 5), monday.plusDays(2)));
+        assertEquals(15, window.getVolume(1L));
+        assertEquals(16, window.getTotalVolume());
+        assertEquals(9.50, window.getTotalRevenue(), 0.000001);
+
+        window.advanceTo(monday.plusDays(3));
+        assertEquals(monday.plusDays(1), window.getFirstDay());
+        assertEquals(5, window.getVolume(1L));
+        assertEquals(2.50, window.getRevenue(1L), 0.000001);
+        assertEquals(6, window.getTotalVolume());
+
+        // a day that has fallen out of the window is ignored, a late day within the window is accepted
+        assertFalse(window.record(new Purchase(apple, 100), monday));
+        assertTrue(window.record(new Purchase(pear, 2), monday.plusDays(1)));
+        assertEquals(3, window.getVolume(2L));
+
+        // a jump beyond the window length expires everything
+        window.advanceTo(monday.plusDays(30));
+        assertEquals(0, window.getTotalVolume());
+        assertEquals(0.0, window.getTotalRevenue(), 0.000001);
+        assertEquals(0, window.getPurchases().size());
+    }
+
+    @Test
+    public void topsRankTheWindowTotals() {
+        window.record(new Purchase(pear, 50), monday);
+        window.record(new Purchase(apple, 10), monday.plusDays(2));
+        window.record(new Purchase(pear, 1), monday.plusDays(3));
+
+        List<Purchase> tops = window.tops(2, Comparator.comparing(Purchase::getCount).reversed());
+        assertEquals(2, tops.size());
+        assertEquals(1L, tops.get(0).getBarcode());
+        assertEquals(1, tops.get(1).getCount());
+    }
+
+    @Test
+    public void windowFromVaultMatchesTheTotals() {
+        PurchaseTracker purchaseTracker = new PurchaseTracker();
+        purchaseTracker.importProductsFromVault("/products.txt");
+        purchaseTracker.importPurchasesFromVault("/purchases");
+
+        PurchaseWindow week = purchaseTracker.importPurchaseWindowFromVault("/purchases", PurchaseWindow.WEEK);
+        assertEquals(LocalDate.of(2021, 10, 2), week.getLastDay());
+        assertEquals(16730, week.getTotalVolume());
+        assertEquals(purchaseTracker.getTotalRevenue(), week.getTotalRevenue(), 0.001);
+
+        PurchaseWindow lastDay = purchaseTracker.importPurchaseWindowFromVault("/purchases", 1);
+        assertTrue(lastDay.getTotalVolume() < week.getTotalVolume());
+    }
+
+    @Test
+    public void windowImportSkipsOtherFoldersAndCorruptLines(@TempDir Path vault) throws IOException {
+        PurchaseTracker purchaseTracker = new PurchaseTracker();
+        purchaseTracker.importProductsFromVault("/products.txt");
+        long barcode = purchaseTracker.getProducts().get(0).getBarcode();
+        Files.write(Files.createDirectories(vault.resolve("20211001")).resolve("webshop.txt"),
+                List.of(barcode + ", 3", "corrupt", barcode + ", many", "8700000000001, 5"));
+        Files.write(Files.createDirectories(vault.resolve("archive")).resolve("webshop.txt"),
+                List.of(barcode + ", 100"));
+
+        PurchaseWindow week = purchaseTracker.importPurchaseWindowFromDirectory(vault.toString(), PurchaseWindow.WEEK);
+        assertEquals(LocalDate.of(2021, 10, 1), week.getLastDay());
+        assertEquals(3, week.getTotalVolume());
+        assertEquals(3, week.getVolume(barcode));
+    }
+}
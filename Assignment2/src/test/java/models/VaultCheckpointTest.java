@@ -0,0 +1,154 @@
+package models;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.attribute.FileTime;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class VaultCheckpointTest {
+
+    @TempDir
+    Path vault;
+
+    PurchaseTracker purchaseTracker;
+
+    @BeforeEach
+    private void setup() throws Exception {
+        purchaseTracker = new PurchaseTracker();
+        purchaseTracker.importProductsFromVault("/products.txt");
+
+        Path source = Paths.get(VaultCheckpointTest.class.getResource("/purchases").toURI());
+        try (Stream<Path> paths = Files.walk(source)) {
+            for (Path path : paths.collect(Collectors.toList())) {
+                Path target = vault.resolve(source.relativize(path).toString());
+                if (Files.isDirectory(path)) {
+                    Files.createDirectories(target);
+                } else if (path.toString().contains("20211001")) {
+                    // start with the first day only
+                    Files.copy(path, target);
+                }
+            }
+        }
+    }
+
+    @Test
+    public void mergesOnlyNewFiles() throws IOException {
+        int numFirstDayFiles = purchaseTracker.mergeNewPurchasesFromDirectory(vault.toString());
+        assertEquals(8, numFirstDayFiles);
+        double firstDayVolume = purchaseTracker.getTotalVolume();
+
+        assertEquals(0, purchaseTracker.mergeNewPurchasesFromDirectory(vault.toString()));
+        assertEquals(firstDayVolume, purchaseTracker.getTotalVolume(), 0.000001);
+
+        // a new date folder arrives
+        Path source = Paths.get(VaultCheckpointTest.class.getResource("/purchases").getPath());
+        Files.walk(source.resolve("20211002")).filter(Files::isRegularFile).forEach(path -> {
+            try {
+                Path target = vault.resolve(source.relativize(path).toString());
+                Files.createDirectories(target.getParent());
+                Files.copy(path, target);
+            } catch (IOException e) {
+                throw new RuntimeException(e);
+            }
+        });
+        assertEquals(6, purchaseTracker.mergeNewPurchasesFromDirectory(vault.toString()));
+        assertEquals(16730, purchaseTracker.getTotalVolume(), 0.000001);
+        assertEquals(16730, purchaseTracker.getPurchases().stream().mapToInt(Purchase::getCount).sum());
+    }
+
+    @Test
+    public void retractsChangedAndDeletedFiles() throws IOException {
+        purchaseTracker.mergeNewPurchasesFromDirectory(vault.toString());
+        double originalVolume = purchaseTracker.getTotalVolume();
+
+        Path webshop = vault.resolve("20211001").resolve("webshop.txt");
+        List<String> lines = Files.readAllLines(webshop);
+        int firstCount = Integer.parseInt(lines.get(0).split(",")[1].trim());
+        Files.write(webshop, lines.subList(1, lines.size()));
+        Files.setLastModifiedTime(webshop, FileTime.fromMillis(Files.getLastModifiedTime(webshop).toMillis() + 2000));
+
+        assertEquals(1, purchaseTracker.mergeNewPurchasesFromDirectory(vault.toString()));
+        assertEquals(originalVolume - firstCount, purchaseTracker.getTotalVolume(), 0.000001);
+
+        Files.delete(webshop);
+        assertEquals(0, purchaseTracker.mergeNewPurchasesFromDirectory(vault.toString()));
+        assertEquals(7, purchaseTracker.getCheckpoint().size());
+        assertEquals(purchaseTracker.getPurchases().stream().mapToInt(Purchase::getCount).sum(),
+                purchaseTracker.getTotalVolume(), 0.000001);
+    }
+
+    @Test
+    public void retractsByBarcodeAndDropsEmptyPurchases() throws IOException {
+        long droppedBarcode = 8712100516382L;
+        long unsoldBarcode = 8700000000001L;
+        List<String> productLines = Files.readAllLines(Paths.get(VaultCheckpointTest.class.getResource("/products.txt").getPath()));
+        Path products = vault.resolve("products.dat");
+        Files.write(products, Stream.concat(productLines.stream(), Stream.of(unsoldBarcode + ", Unsold, 1.00"))
+                .collect(Collectors.toList()));
+        purchaseTracker.importProductsFromFile(products.toString());
+        purchaseTracker.mergeNewPurchasesFromDirectory(vault.toString());
+        int droppedCount = purchaseTracker.getPurchases().stream()
+                .filter(p -> p.getBarcode() == droppedBarcode).findFirst().get().getCount();
+
+        Path extra = vault.resolve("20211001").resolve("extra.txt");
+        Files.write(extra, List.of(droppedBarcode + ", 3", unsoldBarcode + ", 5"));
+        assertEquals(1, purchaseTracker.mergeNewPurchasesFromDirectory(vault.toString()));
+
+        // the catalog drops a product before the file that contributed to it is deleted
+        Files.write(products, productLines.stream()
+                .filter(line -> !line.startsWith(droppedBarcode + ",")).collect(Collectors.toList()));
+        purchaseTracker.importProductsFromFile(products.toString());
+        Files.delete(extra);
+        purchaseTracker.mergeNewPurchasesFromDirectory(vault.toString());
+
+        assertEquals(droppedCount, purchaseTracker.getPurchases().stream()
+                .filter(p -> p.getBarcode() == droppedBarcode).findFirst().get().getCount());
+        assertTrue(purchaseTracker.getPurchases().stream().noneMatch(p -> p.getBarcode() == unsoldBarcode));
+        assertTrue(purchaseTracker.getTops(1, PurchaseTracker.WORST_VOLUME).get(0).getCount() > 0);
+        assertEquals(purchaseTracker.getPurchases().stream().mapToInt(Purchase::getCount).sum(),
+                purchaseTracker.getTotalVolume(), 0.000001);
+    }
+
+    @Test
+    public void readersWaitForConcurrentMerge() throws Exception {
+        purchaseTracker.mergeNewPurchasesFromDirectory(vault.toString());
+        CompletableFuture<Double> volume;
+        synchronized (purchaseTracker) {
+            // a merge of a VaultWatcher holds this monitor
+            volume = CompletableFuture.supplyAsync(purchaseTracker::getTotalVolume);
+            assertThrows(TimeoutException.class, () -> volume.get(200, TimeUnit.MILLISECONDS));
+        }
+        assertEquals(purchaseTracker.getPurchases().stream().mapToInt(Purchase::getCount).sum(),
+                volume.get(10, TimeUnit.SECONDS), 0.000001);
+    }
+
+    @Test
+    public void retractionsFindPurchasesInAnyOrderedList() {
+        Product apple = new Product(1L, "apple", 0.5);
+        Product pear = new Product(2L, "pear", 1.0);
+        List<OrderedList<Purchase>> lists = List.of(new LongKeyedOrderedList<>(Purchase::getBarcode),
+                new OrderedArrayList<>(Comparator.comparing(Purchase::getBarcode)),
+                new ChunkedOrderedList<>(Comparator.comparing(Purchase::getBarcode)));
+        for (OrderedList<Purchase> purchases : lists) {
+            purchases.add(new Purchase(pear, 4));
+            purchases.add(new Purchase(apple, 3));
+            PurchaseTracker.retractContributions(purchases, new long[] { 2L, 1L, 3L }, new int[] { 1, 3, 5 }, 3);
+            assertEquals(1, purchases.size(), purchases.getClass().getSimpleName());
+            assertEquals(3, purchases.get(0).getCount(), purchases.getClass().getSimpleName());
+        }
+    }
+}
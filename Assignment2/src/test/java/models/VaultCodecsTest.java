@@ -0,0 +1,134 @@
+package models;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.GZIPOutputStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class VaultCodecsTest {
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    public void decompressesLargeFilesAcrossManyBlocks() throws IOException {
+        byte[] content = new byte[1000000];
+        new Random(1L).nextBytes(content);
+        Path gzipPath = tempDir.resolve("random.bin.gz");
+        try (OutputStream out = new GZIPOutputStream(Files.newOutputStream(gzipPath))) {
+            out.write(content);
+        }
+        Path zlibPath = tempDir.resolve("random.bin.zz");
+        try (OutputStream out = new DeflaterOutputStream(Files.newOutputStream(zlibPath))) {
+            out.write(content);
+        }
+
+        try (InputStream in = VaultCodecs.open(gzipPath.toString())) {
+            assertArrayEquals(content, in.readAllBytes());
+        }
+        try (InputStream in = VaultCodecs.open(zlibPath.toString())) {
+            assertArrayEquals(content, in.readAllBytes());
+        }
+        assertEquals("lijnbaan.txt", VaultCodecs.stripCompression("lijnbaan.txt.gz"));
+        assertEquals("lijnbaan.txt", VaultCodecs.stripCompression("lijnbaan.txt"));
+    }
+
+    @Test
+    public void importsCompressedVaults() throws Exception {
+        Path source = Paths.get(VaultCodecsTest.class.getResource("/purchases").toURI());
+        Path vault = tempDir.resolve("purchases");
+        try (Stream<Path> paths = Files.walk(source)) {
+            List<Path> files = paths.filter(Files::isRegularFile).collect(Collectors.toList());
+            for (int i = 0; i < files.size(); i++) {
+                Path target = vault.resolve(source.relativize(files.get(i)).toString());
+                Files.createDirectories(target.getParent());
+                if (i % 2 == 0) {
+                    // compress every other file
+                    try (OutputStream out = new GZIPOutputStream(Files.newOutputStream(Paths.get(target + ".gz")))) {
+                        out.write(Files.readAllBytes(files.get(i)));
+                    }
+                } else {
+                    Files.copy(files.get(i), target);
+                }
+            }
+        }
+
+        PurchaseTracker purchaseTracker = new PurchaseTracker();
+        purchaseTracker.importProductsFromVault("/products.txt");
+        assertEquals(14, purchaseTracker.mergeNewPurchasesFromDirectory(vault.toString()));
+        assertEquals(16730, purchaseTracker.getTotalVolume(), 0.000001);
+    }
+
+    @Test
+    public void truncatedFilesFailTheImportWithoutBeingCheckpointed() throws Exception {
+        Path vault = tempDir.resolve("purchases");
+        Files.createDirectories(vault);
+        Path source = Paths.get(VaultCodecsTest.class.getResource("/purchases/20211001/webshop.txt").toURI());
+        Files.copy(source, vault.resolve("complete.txt"));
+        ByteArrayOutputStream compressed = new ByteArrayOutputStream();
+        try (OutputStream out = new GZIPOutputStream(compressed)) {
+            out.write(Files.readAllBytes(source));
+        }
+        Path truncatedPath = vault.resolve("truncated.txt.gz");
+        Files.write(truncatedPath, Arrays.copyOf(compressed.toByteArray(), compressed.size() / 2));
+
+        for (PurchaseTracker.ImportMode mode : PurchaseTracker.ImportMode.values()) {
+            PurchaseTracker purchaseTracker = new PurchaseTracker();
+            purchaseTracker.setImportMode(mode);
+            purchaseTracker.importProductsFromVault("/products.txt");
+            assertThrows(UncheckedIOException.class, () -> purchaseTracker.mergeNewPurchasesFromDirectory(vault.toString()));
+
+            // only completely read files have been merged and checkpointed
+            VaultCheckpoint checkpoint = purchaseTracker.getCheckpoint();
+            assertNull(checkpoint.get(truncatedPath.toAbsolutePath().toString()), mode.toString());
+            double checkpointedVolume = checkpoint.getPaths().stream()
+                    .mapToInt(path -> Arrays.stream(checkpoint.get(path).getCounts()).sum()).sum();
+            assertEquals(checkpointedVolume, purchaseTracker.getTotalVolume(), 0.000001, mode.toString());
+
+            // the truncated file is retried by the next import
+            Files.copy(source, truncatedPath.resolveSibling("truncated.txt"));
+            Files.delete(truncatedPath);
+            purchaseTracker.mergeNewPurchasesFromDirectory(vault.toString());
+            assertEquals(2 * Arrays.stream(checkpoint.get(vault.resolve("complete.txt").toAbsolutePath().toString())
+                    .getCounts()).sum(), purchaseTracker.getTotalVolume(), 0.000001, mode.toString());
+            Files.delete(truncatedPath.resolveSibling("truncated.txt"));
+            Files.write(truncatedPath, Arrays.copyOf(compressed.toByteArray(), compressed.size() / 2));
+        }
+    }
+
+    @Test
+    public void decoderFailuresReachTheReader() throws IOException {
+        VaultCodecs.register(".broken", compressed -> new InputStream() {
+            @Override
+            public int read() {
+                throw new IllegalStateException("broken decoder");
+            }
+        });
+        Path brokenPath = tempDir.resolve("lijnbaan.txt.broken");
+        Files.write(brokenPath, new byte[100]);
+
+        assertTimeoutPreemptively(Duration.ofSeconds(10), () -> {
+            try (InputStream in = VaultCodecs.open(brokenPath.toString())) {
+                IOException failure = assertThrows(IOException.class, in::readAllBytes);
+                assertEquals("broken decoder", failure.getCause().getMessage());
+            }
+        });
+    }
+}
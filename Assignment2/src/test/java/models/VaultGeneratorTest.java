@@ -0,0 +1,56 @@
+package models;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.Comparator;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class VaultGeneratorTest {
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    public void generatesDeterministicVaults() throws IOException {
+        new VaultGenerator(42L, 2, 2, 3, 500, 200).generate(tempDir.resolve("a"), LocalDate.of(2021, 10, 1));
+        new VaultGenerator(42L, 2, 2, 3, 500, 200).generate(tempDir.resolve("b"), LocalDate.of(2021, 10, 1));
+        new VaultGenerator(43L, 2, 2, 3, 500, 200).generate(tempDir.resolve("c"), LocalDate.of(2021, 10, 1));
+
+        String store = "purchases/20211002/city001/store002.txt";
+        assertEquals(200, Files.readAllLines(tempDir.resolve("a").resolve(store)).size());
+        assertEquals(Files.readAllLines(tempDir.resolve("a").resolve(store)), Files.readAllLines(tempDir.resolve("b").resolve(store)));
+        assertNotEquals(Files.readAllLines(tempDir.resolve("a").resolve(store)), Files.readAllLines(tempDir.resolve("c").resolve(store)));
+    }
+
+    @Test
+    public void generatedVaultsCanBeImported() {
+        VaultGenerator generator = new VaultGenerator(7L, 3, 2, 2, 1000, 500);
+        generator.generate(tempDir, LocalDate.of(2021, 10, 1));
+
+        PurchaseTracker purchaseTracker = new PurchaseTracker();
+        purchaseTracker.importProductsFromFile(tempDir.resolve("products.txt").toString());
+        assertEquals(1000, purchaseTracker.getProducts().size());
+        assertEquals(generator.getNumFiles(), purchaseTracker.mergeNewPurchasesFromDirectory(tempDir.resolve("purchases").toString()));
+
+        // the most popular product by the Zipf distribution sells best
+        List<Purchase> tops = purchaseTracker.getTops(1, Comparator.comparing(Purchase::getCount).reversed());
+        assertEquals(generator.getBarcodeOfRank(0), tops.get(0).getBarcode());
+        assertTrue(purchaseTracker.getTotalVolume() >= generator.getNumLines());
+    }
+
+    @Test
+    public void vaultsMayHaveEmptyFilesButNoEmptyDimensions() throws IOException {
+        new VaultGenerator(42L, 1, 1, 1, 10, 0).generate(tempDir, LocalDate.of(2021, 10, 1));
+        assertEquals(0, Files.size(tempDir.resolve("purchases/20211001/city000/store000.txt")));
+
+        assertThrows(IllegalArgumentException.class, () -> new VaultGenerator(42L, 1, 1, 1, 10, -1));
+        assertThrows(IllegalArgumentException.class, () -> new VaultGenerator(42L, 1, 0, 1, 10, 0));
+    }
+}
@@ -0,0 +1,61 @@
+package models;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayOutputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.BooleanSupplier;
+import java.util.zip.GZIPOutputStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class VaultWatcherTest {
+
+    @TempDir
+    Path vault;
+
+    @Test
+    public void keepsMergingAfterATruncatedFile() throws Exception {
+        Path day = Files.createDirectories(vault.resolve("20211001"));
+        PurchaseTracker purchaseTracker = new PurchaseTracker();
+        purchaseTracker.importProductsFromVault("/products.txt");
+
+        try (VaultWatcher watcher = new VaultWatcher(purchaseTracker, vault.toString())) {
+            watcher.start();
+            assertEquals(0, purchaseTracker.getTotalVolume(), 0.000001);
+
+            // a compressed file that is still being written
+            ByteArrayOutputStream compressed = new ByteArrayOutputStream();
+            try (OutputStream out = new GZIPOutputStream(compressed)) {
+                out.write(String.join("\n", List.of("8712100516382, 10", "8718907136068, 32")).getBytes());
+            }
+            Path truncated = day.resolve("truncated.txt.gz");
+            Files.write(truncated, Arrays.copyOf(compressed.toByteArray(), compressed.size() / 2));
+
+            Path webshop = Paths.get(VaultWatcherTest.class.getResource("/purchases/20211001/webshop.txt").toURI());
+            Files.copy(webshop, day.resolve("webshop.txt"));
+            int webshopVolume = Files.readAllLines(webshop).stream()
+                    .mapToInt(line -> Integer.parseInt(line.split(",")[1].trim())).sum();
+            awaitCondition(() -> purchaseTracker.getTotalVolume() == webshopVolume);
+            assertNull(purchaseTracker.getCheckpoint().get(truncated.toAbsolutePath().toString()));
+
+            // the truncated file is retried once it has been written completely
+            Files.write(truncated, compressed.toByteArray());
+            awaitCondition(() -> purchaseTracker.getTotalVolume() == webshopVolume + 42);
+        }
+    }
+
+    private static void awaitCondition(BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 10000;
+        while (!condition.getAsBoolean()) {
+            assertTrue(System.currentTimeMillis() < deadline, "condition not reached in time");
+            Thread.sleep(50);
+        }
+    }
+}
@@ -95,6 +95,17 @@ public class Archer {
         return Integer.compare(other.totalScore, this.totalScore);
     }
 
+    /**
+     * packs the scoring scheme of compareByHighestTotalScoreWithLeastMissesAndLowestId into one long key,
+     * such that ascending keys order the archers by highest total score -> least misses -> lowest id
+     * bits 47..62 hold the complement of the total score, bits 31..46 hold the misses, bits 0..30 hold the id
+     * total scores and misses shall be within 0..65535
+     * @return  the ranking key of this archer
+     */
+    public long getRankingKey() {
+        return ((long) (0xFFFF - this.totalScore) << 47) | ((long) this.misses << 31) | this.id;
+    }
+
     public String toString(){
         return id + " (" + totalScore + ") " + firstName + " " + lastName;
     }
@@ -103,6 +114,10 @@ public class Archer {
         return id;
     }
 
+    public int getMisses() {
+        return misses;
+    }
+
     public String getFirstName() {
         return firstName;
     }
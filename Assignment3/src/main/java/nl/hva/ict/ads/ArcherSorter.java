@@ -1,9 +1,69 @@
 package nl.hva.ict.ads;
 
+import java.util.Arrays;
+import java.util.List;
+
 public class ArcherSorter
         extends SorterImpl<Archer>
         implements Sorter<Archer> {
 
     // this class is for convenience and requires no further implementation if SorterImpl is fully provided
     // alternatively you may override specific methods for Archer sorting here.
+
+    private static final int RADIX_BITS = 16;
+    private static final int RADIX = 1 << RADIX_BITS;
+
+    /**
+     * Ranks all archers by highest total score -> least misses -> lowest id, without any comparator
+     * Every archer gets its packed ranking key, the keys are sorted by an LSD radix sort
+     * on 16-bit digits which carries the archer positions along.
+     * Digits that are equal for all archers are skipped, the sort takes O(n) time.
+     * @param archers
+     * @return  the archers ranked in place, in the same order as by compareByHighestTotalScoreWithLeastMissesAndLowestId
+     */
+    public List<Archer> rankingRadixSort(List<Archer> archers) {
+        Object[] a = archers.toArray();
+        int n = a.length;
+        long[] keys = new long[n];
+        int[] positions = new int[n];
+        for (int i = 0; i < n; i++) {
+            keys[i] = ((Archer) a[i]).getRankingKey();
+            positions[i] = i;
+        }
+
+        long[] keyBuffer = new long[n];
+        int[] positionBuffer = new int[n];
+        int[] counts = new int[RADIX + 1];
+        for (int shift = 0; shift < Long.SIZE; shift += RADIX_BITS) {
+            // count the occurrences of every digit, at the position after the digit
+            Arrays.fill(counts, 0);
+            for (int i = 0; i < n; i++) {
+                counts[(int) ((keys[i] >>> shift) & (RADIX - 1)) + 1]++;
+            }
+            if (n == 0 || counts[(int) ((keys[0] >>> shift) & (RADIX - 1)) + 1] == n) continue;   // all digits are equal
+
+            // turn the counts into the first destination of every digit
+            for (int d = 0; d < RADIX; d++) {
+                counts[d + 1] += counts[d];
+            }
+            // distribute the keys and positions by their digit, which keeps equal digits in order
+            for (int i = 0; i < n; i++) {
+                int destination = counts[(int) ((keys[i] >>> shift) & (RADIX - 1))]++;
+                keyBuffer[destination] = keys[i];
+                positionBuffer[destination] = positions[i];
+            }
+            long[] swapKeys = keys;
+            keys = keyBuffer;
+            keyBuffer = swapKeys;
+            int[] swapPositions = positions;
+            positions = positionBuffer;
+            positionBuffer = swapPositions;
+        }
+
+        Object[] ranked = new Object[n];
+        for (int i = 0; i < n; i++) {
+            ranked[i] = a[positions[i]];
+        }
+        return writeBack(ranked, archers);
+    }
 }
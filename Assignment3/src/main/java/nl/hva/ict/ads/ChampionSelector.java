@@ -34,7 +34,7 @@ public class ChampionSelector {
      * Calculates and shows key results of the competition
      */
     public void showResults() {
-        Sorter<Archer> sorter = new ArcherSorter();
+        ArcherSorter sorter = new ArcherSorter();
         System.out.printf("%d archers have participated in this competition\n", archers.size());
 
         Collections.shuffle(archers);
@@ -44,7 +44,8 @@ public class ChampionSelector {
         sorter.selInsSort(archers, Comparator.comparing(Archer::getLastName).thenComparing(Archer::getFirstName));
         System.out.printf("The first three archers by alphabet are: %s\n\n", archers.subList(0,3));
 
-        sorter.quickSort(archers, Archer::compareByHighestTotalScoreWithLeastMissesAndLowestId);
+        // rank by the packed ranking keys, without any comparisons
+        sorter.rankingRadixSort(archers);
         System.out.printf("At 4th thru 10th place of the rankings we find: %s\n\n", archers.subList(3,10));
 
         Collections.shuffle(archers);
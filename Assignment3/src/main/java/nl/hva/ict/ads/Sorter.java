@@ -9,4 +9,21 @@ public interface Sorter<E> {
     default List<E> topsHeapSort(int numTops, List<E> items, Comparator<E> comparator) {
         return quickSort(items, comparator);
     }
+    default List<E> introSort(List<E> items, Comparator<E> comparator) {
+        return quickSort(items, comparator);
+    }
+    default List<E> quickSort3Way(List<E> items, Comparator<E> comparator) {
+        return quickSort(items, comparator);
+    }
+    default List<E> dualPivotQuickSort(List<E> items, Comparator<E> comparator) {
+        return quickSort(items, comparator);
+    }
+    default List<E> parallelQuickSort(List<E> items, Comparator<E> comparator) {
+        return quickSort(items, comparator);
+    }
+    default List<E> parallelMergeSort(List<E> items, Comparator<E> comparator) {
+        // List.sort is a stable merge sort as well, albeit on a single thread
+        items.sort(comparator);
+        return items;
+    }
 }
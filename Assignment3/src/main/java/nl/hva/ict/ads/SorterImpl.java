@@ -1,31 +1,55 @@
 package nl.hva.ict.ads;
 
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.Comparator;
 import java.util.List;
+import java.util.ListIterator;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
 
 public class SorterImpl<E> implements Sorter<E> {
 
+    private static final int DEFAULT_PARALLEL_CUTOFF = 8192;
+    private static final int INSERTION_SORT_CUTOFF = 16;
+
+    // sections of at most parallelCutoff items are sorted sequentially by the parallel sorts
+    private int parallelCutoff = DEFAULT_PARALLEL_CUTOFF;
+
+    public int getParallelCutoff() {
+        return parallelCutoff;
+    }
+
+    public void setParallelCutoff(int parallelCutoff) {
+        if (parallelCutoff < 1) throw new IllegalArgumentException("The parallel cutoff shall be positive: " + parallelCutoff);
+        this.parallelCutoff = parallelCutoff;
+    }
+
     /**
      * Sorts all items by selection or insertion sort using the provided comparator
      * for deciding relative ordening of two items
-     * Items are sorted 'in place' without use of an auxiliary list or array
+     * Items are copied into an array once, sorted 'in place' in that array and written back into the list
      * @param items
      * @param comparator
      * @return  the items sorted in place
      */
     public List<E> selInsSort(List<E> items, Comparator<E> comparator) {
-        int n = items.size();
+        Object[] a = items.toArray();
+        insertionSortPart(a, 0, a.length - 1, comparator);
+        //Return the sorted list of items.
+        return writeBack(a, items);
+    }
+
+    // sorts items[from..to] inclusive by insertion sort
+    private void insertionSortPart(Object[] items, int from, int to, Comparator<E> comparator) {
         // Loop as long as there are items.
-        for (int i = 1; i < n; i++) {
+        for (int i = from + 1; i <= to; i++) {
             // Examine each item and compare it to items on its left
-            for (int j = i; j > 0 && less(items.get(j), items.get(j - 1), comparator); j--) {
+            for (int j = i; j > from && less(at(items, j), at(items, j - 1), comparator); j--) {
                 //Insert the item in the correct position in the array.
                 exch(items, j, j - 1);
             }
         }
-        //Return the sorted list of items.
-        return items;
     }
 
     // is firstItem < secondItem?
@@ -34,26 +58,45 @@ public class SorterImpl<E> implements Sorter<E> {
         return comparator.compare(firstItem, secondItem) < 0;
     }
 
-    // swap a.get(firstIndex) and a.get(secondIndex)
-    private void exch(List<E> a, int firstIndex, int secondIndex) {
-        E swap = a.get(firstIndex);
-        a.set(firstIndex, a.get(secondIndex));
-        a.set(secondIndex, swap);
+    // reads a[index], which holds an item of the list that was copied into a
+    @SuppressWarnings("unchecked")
+    private static <E> E at(Object[] a, int index) {
+        return (E) a[index];
+    }
+
+    // swap a[firstIndex] and a[secondIndex]
+    private void exch(Object[] a, int firstIndex, int secondIndex) {
+        Object swap = a[firstIndex];
+        a[firstIndex] = a[secondIndex];
+        a[secondIndex] = swap;
+    }
+
+    // writes the sorted items of a back into the list, through a list iterator
+    //  which takes linear time on any kind of list
+    protected List<E> writeBack(Object[] a, List<E> items) {
+        ListIterator<E> iterator = items.listIterator();
+        for (int i = 0; i < a.length; i++) {
+            iterator.next();
+            iterator.set(at(a, i));
+        }
+        return items;
     }
 
     /**
      * Sorts all items by quick sort using the provided comparator
      * for deciding relative ordening of two items
-     * Items are sorted 'in place' without use of an auxiliary list or array
+     * Items are copied into an array once, sorted 'in place' in that array and written back into the list
      * @param items
      * @param comparator
      * @return  the items sorted in place
      */
     public List<E> quickSort(List<E> items, Comparator<E> comparator) {
-        // sort the complete list of items from position 0 till size-1, encluding position size
-        Collections.shuffle(items);
-        this.quickSortPart(items, 0, items.size()-1, comparator);
-        return items;
+        Object[] a = items.toArray();
+        // sort the complete array of items from position 0 till size-1, encluding position size
+        // shuffle first, such that no input, like an organ pipe, defeats the median-of-three pivots
+        Collections.shuffle(Arrays.asList(a));
+        this.quickSortPart(a, 0, a.length-1, comparator);
+        return writeBack(a, items);
     }
 
     /**
@@ -65,7 +108,7 @@ public class SorterImpl<E> implements Sorter<E> {
      * @param comparator
      * @return  the items sorted in place
      */
-    private void quickSortPart(List<E> items, int from, int to, Comparator<E> comparator) {
+    private void quickSortPart(Object[] items, int from, int to, Comparator<E> comparator) {
         // quick sort the sublist of items between index positions 'from' and 'to' inclusive
         if (to <= from) return;
         int j = partition(items, from, to, comparator);
@@ -73,22 +116,122 @@ public class SorterImpl<E> implements Sorter<E> {
         quickSortPart(items, j+1, to, comparator);
     }
 
+    /**
+     * Sorts all items by introspective sort using the provided comparator
+     * for deciding relative ordening of two items
+     * Sections are partitioned by quick sort, sections of less than INSERTION_SORT_CUTOFF items are finished
+     * by insertion sort, and sections that are still unsorted beyond a recursion depth of 2*log2(n)
+     * are finished by heap sort. This bounds the worst case to O(n log n) comparisons, for any input.
+     * Items are copied into an array once, sorted 'in place' in that array and written back into the list
+     * @param items
+     * @param comparator
+     * @return  the items sorted in place
+     */
+    public List<E> introSort(List<E> items, Comparator<E> comparator) {
+        return introSort(items, comparator, 2 * log2(items.size()));
+    }
+
+    // sorts the items by introspective sort, switching to heap sort beyond the given recursion depth
+    List<E> introSort(List<E> items, Comparator<E> comparator, int maxDepth) {
+        Object[] a = items.toArray();
+        this.introSortPart(a, 0, a.length - 1, maxDepth, comparator);
+        return writeBack(a, items);
+    }
+
+    private static int log2(int n) {
+        return n > 0 ? 31 - Integer.numberOfLeadingZeros(n) : 0;
+    }
+
+    private void introSortPart(Object[] items, int from, int to, int depthLeft, Comparator<E> comparator) {
+        if (to - from < INSERTION_SORT_CUTOFF) {
+            insertionSortPart(items, from, to, comparator);
+        } else if (depthLeft == 0) {
+            heapSortPart(items, from, to, comparator);
+        } else {
+            int j = partition(items, from, to, comparator);
+            introSortPart(items, from, j-1, depthLeft - 1, comparator);
+            introSortPart(items, j+1, to, depthLeft - 1, comparator);
+        }
+    }
+
+    // sorts items[from..to] inclusive by heap sort
+    private void heapSortPart(Object[] items, int from, int to, Comparator<E> comparator) {
+        // organise the section into a heap with the largest item at its root
+        Comparator<E> reverseComparator = comparator.reversed();
+        int heapSize = to - from + 1;
+        for (int i = heapSize / 2 - 1; i >= 0; i--) {
+            heapSink(items, from, i, heapSize, reverseComparator);
+        }
+        // repeatedly move the largest remaining item behind the shrinking heap
+        for (int i = heapSize - 1; i > 0; i--) {
+            exch(items, from, from + i);
+            heapSink(items, from, 0, i, reverseComparator);
+        }
+    }
 
-    private int partition(List<E> items, int low, int high, Comparator<E> comparator) {
+    /**
+     * Sorts all items by quick sort using the provided comparator
+     * for deciding relative ordening of two items
+     * Both partitions of sections of more than parallelCutoff items are sorted in parallel
+     * on the common ForkJoinPool, smaller sections are sorted sequentially by quickSortPart.
+     * The partitions are disjoint ranges of the array, and partition only accesses its own range.
+     * Items are copied into an array once, sorted 'in place' in that array and written back into the list
+     * @param items
+     * @param comparator
+     * @return  the items sorted in place
+     */
+    public List<E> parallelQuickSort(List<E> items, Comparator<E> comparator) {
+        Object[] a = items.toArray();
+        Collections.shuffle(Arrays.asList(a));
+        ForkJoinPool.commonPool().invoke(new QuickSortTask(a, 0, a.length - 1, comparator));
+        return writeBack(a, items);
+    }
+
+    // quick sorts items[from..to], forking both partitions of sections beyond the parallel cutoff
+    private class QuickSortTask extends RecursiveAction {
+        private final Object[] items;
+        private final int from;
+        private final int to;
+        private final Comparator<E> comparator;
+
+        QuickSortTask(Object[] items, int from, int to, Comparator<E> comparator) {
+            this.items = items;
+            this.from = from;
+            this.to = to;
+            this.comparator = comparator;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from < parallelCutoff) {
+                quickSortPart(items, from, to, comparator);
+                return;
+            }
+            int j = partition(items, from, to, comparator);
+            invokeAll(new QuickSortTask(items, from, j - 1, comparator),
+                    new QuickSortTask(items, j + 1, to, comparator));
+        }
+    }
+
+    // partitions items[low..high] around items[low], accessing no other positions of items
+    //  such that disjoint ranges of the same list can be partitioned concurrently
+    private int partition(Object[] items, int low, int high, Comparator<E> comparator) {
+        // use the median of the first, middle and last item as the partitioning item
+        exch(items, low, medianOfThree(items, low, (low + high) >>> 1, high, comparator));
         int i = low;
         int j = high + 1;
-        E itemLow = items.get(low);
+        E itemLow = at(items, low);
         while (true) {
 
             // Scan i from left to right as long as i is smaller than the partitioning item.
             // When i is bigger than the partitioning item the loop will break
-            while (less(items.get(++i), itemLow, comparator)) {
+            while (less(at(items, ++i), itemLow, comparator)) {
                 if (i == high) break;
             }
 
             // Scan j from right to left as long as j is greater than the partitioning item.
             // Once j is less than the partitioning item the loop stops.
-            while (less(itemLow, items.get(--j), comparator)) {
+            while (less(itemLow, at(items, --j), comparator)) {
                 if (j == low) break;
             }
             // if the pointers cross, break the loop
@@ -109,22 +252,130 @@ public class SorterImpl<E> implements Sorter<E> {
         return j;
     }
 
+    // finds the position of the median of items[a], items[b] and items[c]
+    private int medianOfThree(Object[] items, int a, int b, int c, Comparator<E> comparator) {
+        if (less(at(items, b), at(items, a), comparator)) {
+            int swap = a;
+            a = b;
+            b = swap;
+        }
+        // now items[a] <= items[b]
+        if (less(at(items, c), at(items, b), comparator)) {
+            return less(at(items, c), at(items, a), comparator) ? a : c;
+        }
+        return b;
+    }
+
+    /**
+     * Sorts all items by quick sort with three-way partitioning (Dijkstra's Dutch national flag)
+     * using the provided comparator for deciding relative ordening of two items
+     * Every partitioning step gathers all items equal to the median-of-three pivot in the middle,
+     * which are excluded from further sorting, such that many duplicate keys speed up the sort
+     * Items are copied into an array once, sorted 'in place' in that array and written back into the list
+     * @param items
+     * @param comparator
+     * @return  the items sorted in place
+     */
+    public List<E> quickSort3Way(List<E> items, Comparator<E> comparator) {
+        Object[] a = items.toArray();
+        this.quickSort3WayPart(a, 0, a.length - 1, comparator);
+        return writeBack(a, items);
+    }
+
+    private void quickSort3WayPart(Object[] items, int from, int to, Comparator<E> comparator) {
+        if (to - from < INSERTION_SORT_CUTOFF) {
+            insertionSortPart(items, from, to, comparator);
+            return;
+        }
+        exch(items, from, medianOfThree(items, from, (from + to) >>> 1, to, comparator));
+        E pivot = at(items, from);
+
+        // loop-invariant: items[from..lt-1] < pivot, items[lt..i-1] == pivot, items[gt+1..to] > pivot
+        int lt = from;
+        int i = from + 1;
+        int gt = to;
+        while (i <= gt) {
+            int comparison = comparator.compare(at(items, i), pivot);
+            if (comparison < 0) exch(items, lt++, i++);
+            else if (comparison > 0) exch(items, i, gt--);
+            else i++;
+        }
+        quickSort3WayPart(items, from, lt - 1, comparator);
+        quickSort3WayPart(items, gt + 1, to, comparator);
+    }
+
+    /**
+     * Sorts all items by dual-pivot quick sort using the provided comparator
+     * for deciding relative ordening of two items
+     * Every partitioning step splits a section into items < pivot1, pivot1 <= items <= pivot2 and items > pivot2,
+     * with the pivots taken as the second and fourth of five sorted samples of the section.
+     * If both pivots are equal, the middle part holds only duplicates and is not sorted any further.
+     * Items are copied into an array once, sorted 'in place' in that array and written back into the list
+     * @param items
+     * @param comparator
+     * @return  the items sorted in place
+     */
+    public List<E> dualPivotQuickSort(List<E> items, Comparator<E> comparator) {
+        Object[] a = items.toArray();
+        this.dualPivotQuickSortPart(a, 0, a.length - 1, comparator);
+        return writeBack(a, items);
+    }
+
+    private void dualPivotQuickSortPart(Object[] items, int from, int to, Comparator<E> comparator) {
+        if (to - from < INSERTION_SORT_CUTOFF) {
+            insertionSortPart(items, from, to, comparator);
+            return;
+        }
+        // sort five evenly spaced samples in place, and move the second and fourth to the ends as pivots
+        int length = to - from + 1;
+        int seventh = (length >> 3) + (length >> 6) + 1;
+        int e3 = (from + to) >>> 1;
+        int[] samples = {e3 - 2 * seventh, e3 - seventh, e3, e3 + seventh, e3 + 2 * seventh};
+        for (int s = 1; s < samples.length; s++) {
+            for (int t = s; t > 0 && less(at(items, samples[t]), at(items, samples[t - 1]), comparator); t--) {
+                exch(items, samples[t], samples[t - 1]);
+            }
+        }
+        exch(items, from, samples[1]);
+        exch(items, to, samples[3]);
+        E pivot1 = at(items, from);
+        E pivot2 = at(items, to);
+
+        // loop-invariant: items[from+1..lt-1] < pivot1, pivot1 <= items[lt..i-1] <= pivot2, items[gt+1..to-1] > pivot2
+        int lt = from + 1;
+        int i = from + 1;
+        int gt = to - 1;
+        while (i <= gt) {
+            if (less(at(items, i), pivot1, comparator)) exch(items, lt++, i++);
+            else if (less(pivot2, at(items, i), comparator)) exch(items, i, gt--);
+            else i++;
+        }
+        // move the pivots into their final positions
+        exch(items, from, --lt);
+        exch(items, to, ++gt);
+
+        dualPivotQuickSortPart(items, from, lt - 1, comparator);
+        if (less(pivot1, pivot2, comparator)) dualPivotQuickSortPart(items, lt + 1, gt - 1, comparator);
+        dualPivotQuickSortPart(items, gt + 1, to, comparator);
+    }
+
     /**
      * Identifies the lead collection of numTops items according to the ordening criteria of comparator
      * and organizes and sorts this lead collection into the first numTops positions of the list
      * with use of (zero-based) heapSwim and heapSink operations.
      * The remaining items are kept in the tail of the list, in arbitrary order.
-     * Items are sorted 'in place' without use of an auxiliary list or array or other positions in items
+     * Items are copied into an array once, sorted 'in place' in that array and written back into the list
      * @param numTops       the size of the lead collection of items to be found and sorted
-     * @param items
+     * @param list
      * @param comparator
      * @return              the items list with its first numTops items sorted according to comparator
      *                      all other items >= any item in the lead collection
      */
-    public List<E> topsHeapSort(int numTops, List<E> items, Comparator<E> comparator) {
+    public List<E> topsHeapSort(int numTops, List<E> list, Comparator<E> comparator) {
         // check 0 < numTops <= items.size()
-        if (numTops <= 0) return items;
-        else if (numTops > items.size()) return quickSort(items, comparator);
+        if (numTops <= 0) return list;
+        else if (numTops > list.size()) return quickSort(list, comparator);
+        Object[] items = list.toArray();
 
         // the lead collection of numTops items will be organised into a (zero-based) heap structure
         // in the first numTops list positions using the reverseComparator for the heap condition.
@@ -139,17 +390,17 @@ public class SorterImpl<E> implements Sorter<E> {
         }
 
         // insert remaining items into the lead collection as appropriate
-        for (int i = numTops; i < items.size(); i++) {
+        for (int i = numTops; i < items.length; i++) {
             // loop-invariant: items[0..numTops-1] represents the current lead collection in a heap data structure
             //  the root of the heap is the currently trailing item in the lead collection,
             //  which will lose its membership if a better item is found from position i onwards
-            E item = items.get(i);
-            E worstLeadItem = items.get(0);
+            E item = at(items, i);
+            E worstLeadItem = at(items, 0);
             if (comparator.compare(item, worstLeadItem) < 0) {
                 // item < worstLeadItem, so shall be included in the lead collection
-                items.set(0, item);
+                items[0] = item;
                 // demote worstLeadItem back to the tail collection, at the orginal position of item
-                items.set(i, worstLeadItem);
+                items[i] = worstLeadItem;
                 // repair the heap condition of the lead collection
                 heapSink(items, numTops, reverseComparator);
             }
@@ -172,7 +423,7 @@ public class SorterImpl<E> implements Sorter<E> {
         // alternatively we can realise full ordening with a partial quicksort:
         // quickSortPart(items, 0, numTops-1, comparator);
 
-        return items;
+        return writeBack(items, list);
     }
 
     /**
@@ -185,7 +436,7 @@ public class SorterImpl<E> implements Sorter<E> {
      * @param heapSize
      * @param comparator
      */
-    private void heapSwim(List<E> items, int heapSize, Comparator<E> comparator) {
+    private void heapSwim(Object[] items, int heapSize, Comparator<E> comparator) {
         // we set the childindex to the last item added to the heap
         int childIndex = heapSize-1;
         // check if the childindex is not the highest element in the heap
@@ -193,7 +444,7 @@ public class SorterImpl<E> implements Sorter<E> {
             // we get the parent of the childindex, by subtracting it by 1 and dividing it by 2
             int parentIndex = (childIndex -1) /2;
             // if the parent is smaller than the child we will break
-            if(less(items.get(parentIndex), items.get(childIndex), comparator)) break;
+            if(less(at(items, parentIndex), at(items, childIndex), comparator)) break;
             // if the parent is bigger we will swap the 2 indexes.
             exch(items, childIndex, parentIndex);
             // we set the childIndex to the parentIndex to go further up the heap and do the same process again.
@@ -211,26 +462,121 @@ public class SorterImpl<E> implements Sorter<E> {
      * @param heapSize
      * @param comparator
      */
-    private void heapSink(List<E> items, int heapSize, Comparator<E> comparator) {
-        // parentIndex will start at the top of the heap
-        int parentIndex = 0;
+    private void heapSink(Object[] items, int heapSize, Comparator<E> comparator) {
+        heapSink(items, 0, 0, heapSize, comparator);
+    }
+
+    /**
+     * Repairs the zero-based heap condition for items[from+rootIndex] on the basis of the comparator
+     * for a heap of heapSize items that is stored from position from onwards
+     * all items below rootIndex are assumed to satisfy the heap condition
+     * @param items
+     * @param from          the position of the root of the heap
+     * @param rootIndex     the heap index of the item that may violate the heap condition
+     * @param heapSize
+     * @param comparator
+     */
+    private void heapSink(Object[] items, int from, int rootIndex, int heapSize, Comparator<E> comparator) {
+        // parentIndex will start at the given root of the (sub)heap
+        int parentIndex = rootIndex;
 
         // Check if it has a child
         while(2 * parentIndex + 1 < heapSize) {
             // We set the childIndex
             int childIndex = 2 * parentIndex + 1;
             // checks if it has a second child and if it is lower.
-            if (2 * parentIndex + 2 < heapSize && less(items.get(2 * parentIndex + 2), items.get(childIndex), comparator)) {
+            if (2 * parentIndex + 2 < heapSize && less(at(items, from + 2 * parentIndex + 2), at(items, from + childIndex), comparator)) {
                 // if the second child is lower, we will set this to the childindex
                 childIndex = 2 * parentIndex + 2;
             }
             // we will check if the parent is lower than the child.
-            if (less(items.get(parentIndex), items.get(childIndex), comparator)) break;
+            if (less(at(items, from + parentIndex), at(items, from + childIndex), comparator)) break;
             // if the parentis bigger than the child, we will swap the 2
-            exch(items, parentIndex, childIndex);
+            exch(items, from + parentIndex, from + childIndex);
             // we set the childIndex to the parentIndex to go further down the heap and do the same process again.
             parentIndex = childIndex;
         }
     }
 
+    /**
+     * Sorts all items by a stable merge sort using the provided comparator
+     * for deciding relative ordening of two items
+     * Sections of more than parallelCutoff items are split in halves which are sorted in parallel
+     * on the common ForkJoinPool, smaller sections are sorted sequentially.
+     * The items are copied into an array once, and all merges share one auxiliary array of the same size.
+     * @param items
+     * @param comparator
+     * @return  the items sorted in place, items that compare equal keep their original order
+     */
+    public List<E> parallelMergeSort(List<E> items, Comparator<E> comparator) {
+        Object[] a = items.toArray();
+        Object[] aux = new Object[a.length];
+        ForkJoinPool.commonPool().invoke(new MergeSortTask(a, aux, 0, a.length, comparator));
+        return writeBack(a, items);
+    }
+
+    // merge sorts a[from..to-1], forking the halves of sections beyond the parallel cutoff
+    private class MergeSortTask extends RecursiveAction {
+        private final Object[] a;
+        private final Object[] aux;
+        private final int from;
+        private final int to;
+        private final Comparator<E> comparator;
+
+        MergeSortTask(Object[] a, Object[] aux, int from, int to, Comparator<E> comparator) {
+            this.a = a;
+            this.aux = aux;
+            this.from = from;
+            this.to = to;
+            this.comparator = comparator;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from <= parallelCutoff) {
+                mergeSortPart(a, aux, from, to, comparator);
+                return;
+            }
+            int mid = (from + to) >>> 1;
+            invokeAll(new MergeSortTask(a, aux, from, mid, comparator),
+                    new MergeSortTask(a, aux, mid, to, comparator));
+            merge(a, aux, from, mid, to, comparator);
+        }
+    }
+
+    // sequentially merge sorts a[from..to-1], with insertion sort for small sections
+    private void mergeSortPart(Object[] a, Object[] aux, int from, int to, Comparator<E> comparator) {
+        if (to - from <= INSERTION_SORT_CUTOFF) {
+            for (int i = from + 1; i < to; i++) {
+                // insertion stops at equal items, which keeps the sort stable
+                for (int j = i; j > from && less(at(a, j), at(a, j - 1), comparator); j--) {
+                    Object swap = a[j];
+                    a[j] = a[j - 1];
+                    a[j - 1] = swap;
+                }
+            }
+            return;
+        }
+        int mid = (from + to) >>> 1;
+        mergeSortPart(a, aux, from, mid, comparator);
+        mergeSortPart(a, aux, mid, to, comparator);
+        merge(a, aux, from, mid, to, comparator);
+    }
+
+    // merges the sorted sections a[from..mid-1] and a[mid..to-1], using aux[from..to-1] as buffer
+    private void merge(Object[] a, Object[] aux, int from, int mid, int to, Comparator<E> comparator) {
+        // both sections are in order already
+        if (!less(at(a, mid), at(a, mid - 1), comparator)) return;
+
+        System.arraycopy(a, from, aux, from, to - from);
+        int left = from;
+        int right = mid;
+        for (int i = from; i < to; i++) {
+            // take from the left section unless the right item is strictly less, which keeps the sort stable
+            if (left >= mid) a[i] = aux[right++];
+            else if (right >= to) a[i] = aux[left++];
+            else if (less(at(aux, right), at(aux, left), comparator)) a[i] = aux[right++];
+            else a[i] = aux[left++];
+        }
+    }
 }
@@ -4,12 +4,15 @@ import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.Comparator;
+import java.util.LinkedList;
 import java.util.List;
 import java.util.stream.Collectors;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 
 class ArcherSorterTest {
     protected Sorter<Archer> sorter = new ArcherSorter();
@@ -90,4 +93,218 @@ class ArcherSorterTest {
         assertEquals(manyArchers.subList(0,25), manySortedArchers.subList(0,25));
     }
 
+    @Test
+    void parallelMergeSortAndCollectionSortResultInSameOrder() {
+        List<Archer> fewSortedArchers = new ArrayList<>(fewArchers);
+        List<Archer> manySortedArchers = new ArrayList<>(manyArchers);
+
+        Collections.shuffle(fewSortedArchers);
+        sorter.parallelMergeSort(fewSortedArchers, Comparator.comparing(Archer::getId));
+        fewArchers.sort(Comparator.comparing(Archer::getId));
+        assertEquals(fewArchers, fewSortedArchers);
+
+        // a small cutoff forces sections to be sorted in parallel, which shall keep equal last names in their original order
+        ArcherSorter parallelSorter = new ArcherSorter();
+        parallelSorter.setParallelCutoff(20);
+        parallelSorter.parallelMergeSort(manySortedArchers, Comparator.comparing(Archer::getLastName));
+        manyArchers.sort(Comparator.comparing(Archer::getLastName));
+        assertEquals(manyArchers, manySortedArchers);
+
+        parallelSorter.parallelMergeSort(manySortedArchers, scoringScheme);
+        manyArchers.sort(scoringScheme);
+        assertEquals(manyArchers, manySortedArchers);
+    }
+
+    @Test
+    void parallelQuickSortAndCollectionSortResultInSameOrder() {
+        List<Archer> fewSortedArchers = new LinkedList<>(fewArchers);
+        List<Archer> manySortedArchers = new ArrayList<>(manyArchers);
+
+        sorter.parallelQuickSort(fewSortedArchers, Comparator.comparing(Archer::getId));
+        fewArchers.sort(Comparator.comparing(Archer::getId));
+        assertEquals(fewArchers, fewSortedArchers);
+
+        // a small cutoff forces partitions to be sorted in parallel
+        ArcherSorter parallelSorter = new ArcherSorter();
+        parallelSorter.setParallelCutoff(10);
+        parallelSorter.parallelQuickSort(manySortedArchers, scoringScheme);
+        manyArchers.sort(scoringScheme);
+        assertEquals(manyArchers, manySortedArchers);
+    }
+
+    @Test
+    void quickSort3WayAndCollectionSortResultInSameOrder() {
+        List<Archer> fewSortedArchers = new ArrayList<>(fewArchers);
+        List<Archer> manySortedArchers = new ArrayList<>(manyArchers);
+
+        sorter.quickSort3Way(fewSortedArchers, Comparator.comparing(Archer::getId));
+        fewArchers.sort(Comparator.comparing(Archer::getId));
+        assertEquals(fewArchers, fewSortedArchers);
+
+        // many archers share the same total score
+        sorter.quickSort3Way(manySortedArchers, Comparator.comparing(Archer::getTotalScore));
+        manyArchers.sort(Comparator.comparing(Archer::getTotalScore));
+        assertEquals(manyArchers.stream().map(Archer::getTotalScore).collect(Collectors.toList()),
+                manySortedArchers.stream().map(Archer::getTotalScore).collect(Collectors.toList()));
+
+        sorter.quickSort3Way(manySortedArchers, scoringScheme);
+        manyArchers.sort(scoringScheme);
+        assertEquals(manyArchers, manySortedArchers);
+
+        // already sorted input
+        sorter.quickSort3Way(manySortedArchers, scoringScheme);
+        assertEquals(manyArchers, manySortedArchers);
+    }
+
+    @Test
+    void dualPivotQuickSortAndCollectionSortResultInSameOrder() {
+        List<Archer> fewSortedArchers = new ArrayList<>(fewArchers);
+        List<Archer> manySortedArchers = new LinkedList<>(manyArchers);
+
+        sorter.dualPivotQuickSort(fewSortedArchers, Comparator.comparing(Archer::getId));
+        fewArchers.sort(Comparator.comparing(Archer::getId));
+        assertEquals(fewArchers, fewSortedArchers);
+
+        // many archers share the same total score
+        sorter.dualPivotQuickSort(manySortedArchers, Comparator.comparing(Archer::getTotalScore));
+        manyArchers.sort(Comparator.comparing(Archer::getTotalScore));
+        assertEquals(manyArchers.stream().map(Archer::getTotalScore).collect(Collectors.toList()),
+                manySortedArchers.stream().map(Archer::getTotalScore).collect(Collectors.toList()));
+
+        sorter.dualPivotQuickSort(manySortedArchers, scoringScheme);
+        manyArchers.sort(scoringScheme);
+        assertEquals(manyArchers, manySortedArchers);
+
+        // already sorted and reversed input
+        sorter.dualPivotQuickSort(manySortedArchers, scoringScheme);
+        assertEquals(manyArchers, manySortedArchers);
+        Collections.reverse(manySortedArchers);
+        sorter.dualPivotQuickSort(manySortedArchers, scoringScheme);
+        assertEquals(manyArchers, manySortedArchers);
+    }
+
+    @Test
+    void introSortAndCollectionSortResultInSameOrder() {
+        List<Archer> fewSortedArchers = new ArrayList<>(fewArchers);
+        List<Archer> manySortedArchers = new LinkedList<>(manyArchers);
+
+        sorter.introSort(fewSortedArchers, Comparator.comparing(Archer::getId));
+        fewArchers.sort(Comparator.comparing(Archer::getId));
+        assertEquals(fewArchers, fewSortedArchers);
+
+        sorter.introSort(manySortedArchers, scoringScheme);
+        manyArchers.sort(scoringScheme);
+        assertEquals(manyArchers, manySortedArchers);
+
+        // already sorted and reversed input
+        sorter.introSort(manySortedArchers, scoringScheme);
+        assertEquals(manyArchers, manySortedArchers);
+        Collections.reverse(manySortedArchers);
+        sorter.introSort(manySortedArchers, scoringScheme);
+        assertEquals(manyArchers, manySortedArchers);
+    }
+
+    @Test
+    void introSortFallsBackToHeapSortBeyondItsDepthLimit() {
+        ArcherSorter archerSorter = new ArcherSorter();
+        manyArchers.sort(scoringScheme);
+
+        // without any recursion depth left, every section is heap sorted
+        for (int maxDepth = 0; maxDepth <= 2; maxDepth++) {
+            List<Archer> sortedArchers = new ArrayList<>(manyArchers);
+            Collections.shuffle(sortedArchers);
+            archerSorter.introSort(sortedArchers, scoringScheme, maxDepth);
+            assertEquals(manyArchers, sortedArchers);
+        }
+    }
+
+    @Test
+    void quickSortsHandleMedianOfThreeKillers() {
+        int n = 5000;
+        List<Integer> killer = medianOfThreeKiller(n);
+        List<Integer> expected = new ArrayList<>(killer);
+        expected.sort(Comparator.naturalOrder());
+
+        // a killer input takes a quadratic number of comparisons from an unshuffled quick sort
+        SorterImpl<Integer> integerSorter = new SorterImpl<>();
+        int[] numComparisons = { 0 };
+        Comparator<Integer> countingComparator = (x, y) -> {
+            numComparisons[0]++;
+            return Integer.compare(x, y);
+        };
+        assertEquals(expected, integerSorter.quickSort(new ArrayList<>(killer), countingComparator));
+        assertTrue(numComparisons[0] < 10 * n * 13, "comparisons: " + numComparisons[0]);
+        numComparisons[0] = 0;
+        assertEquals(expected, integerSorter.parallelQuickSort(new ArrayList<>(killer), countingComparator));
+        assertTrue(numComparisons[0] < 10 * n * 13, "comparisons: " + numComparisons[0]);
+    }
+
+    // builds an input that defeats the median-of-three pivots of the quick sorts, if they would not shuffle,
+    //  by McIlroy's adversary: the values of the items are only fixed when the sort compares them,
+    //  such that a pivot candidate always ends up as small as possible
+    private static List<Integer> medianOfThreeKiller(int n) {
+        int gas = n;
+        int[] values = new int[n];
+        Arrays.fill(values, gas);
+        int[] numSolid = { 0 };
+        int[] candidate = { -1 };
+        Comparator<Integer> adversary = (x, y) -> {
+            if (values[x] == gas && values[y] == gas) {
+                values[x == candidate[0] ? x : y] = numSolid[0]++;
+            }
+            if (values[x] == gas) candidate[0] = x;
+            else if (values[y] == gas) candidate[0] = y;
+            return Integer.compare(values[x], values[y]);
+        };
+        List<Integer> positions = new ArrayList<>();
+        for (int i = 0; i < n; i++) {
+            positions.add(i);
+        }
+        // intro sort partitions like quick sort, and does not shuffle
+        new SorterImpl<Integer>().introSort(positions, adversary, Integer.MAX_VALUE);
+
+        List<Integer> killer = new ArrayList<>();
+        for (int value : values) {
+            killer.add(value);
+        }
+        return killer;
+    }
+
+    @Test
+    void allSortsHandleLinkedLists() {
+        manyArchers.sort(scoringScheme);
+
+        List<Archer> linkedArchers = new LinkedList<>(manyArchers);
+        Collections.shuffle(linkedArchers);
+        sorter.selInsSort(linkedArchers, scoringScheme);
+        assertEquals(manyArchers, linkedArchers);
+
+        Collections.shuffle(linkedArchers);
+        sorter.quickSort(linkedArchers, scoringScheme);
+        assertEquals(manyArchers, linkedArchers);
+
+        Collections.shuffle(linkedArchers);
+        sorter.topsHeapSort(10, linkedArchers, scoringScheme);
+        assertEquals(manyArchers.subList(0, 10), linkedArchers.subList(0, 10));
+
+        Collections.shuffle(linkedArchers);
+        sorter.parallelMergeSort(linkedArchers, scoringScheme);
+        assertEquals(manyArchers, linkedArchers);
+    }
+
+    @Test
+    void rankingRadixSortAndCollectionSortResultInSameOrder() {
+        ArcherSorter archerSorter = new ArcherSorter();
+        List<Archer> fewSortedArchers = new ArrayList<>(fewArchers);
+        List<Archer> manySortedArchers = new LinkedList<>(manyArchers);
+
+        Collections.shuffle(fewSortedArchers);
+        archerSorter.rankingRadixSort(fewSortedArchers);
+        fewArchers.sort(scoringScheme);
+        assertEquals(fewArchers, fewSortedArchers);
+
+        archerSorter.rankingRadixSort(manySortedArchers);
+        manyArchers.sort(scoringScheme);
+        assertEquals(manyArchers, manySortedArchers);
+    }
 }
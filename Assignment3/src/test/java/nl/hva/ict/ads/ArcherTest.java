@@ -119,4 +119,22 @@ public class ArcherTest {
         }
         assertTrue(scoringScheme.compare(archer1, archer2) < 0);
     }
+
+    @Test
+    void rankingKeysFollowTheScoringScheme() {
+        for (int round = 1; round <= Archer.MAX_ROUNDS; round++) {
+            archer1.registerScoreForRound(round, scores1);
+            archer2.registerScoreForRound(round, scores2);
+            archer3.registerScoreForRound(round, scores3);
+            archer4.registerScoreForRound(round, scores4);
+        }
+        assertEquals(10, archer2.getMisses());
+        Archer[] archers = {archer1, archer2, archer3, archer4};
+        for (Archer first : archers) {
+            for (Archer second : archers) {
+                assertEquals(Integer.signum(scoringScheme.compare(first, second)),
+                        Long.signum(Long.compare(first.getRankingKey(), second.getRankingKey())));
+            }
+        }
+    }
 }